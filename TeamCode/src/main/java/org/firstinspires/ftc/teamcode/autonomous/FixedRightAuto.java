@@ -10,8 +10,18 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.robot.hardware.ActuatorCache;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.HardwareHub;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorPoller;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LoopRunner;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
 import org.firstinspires.ftc.teamcode.vision.signal.AprilTagVisionPipeline;
 import org.firstinspires.ftc.teamcode.vision.signal.Location;
 
@@ -38,6 +48,8 @@ public class FixedRightAuto extends LinearOpMode {
     }
     private AutoState autoState = AutoState.DRIVE_TO_SPOT;
 
+    private static final int STATE = FlightRecorder.field("auto state");
+
     private Pose2d startPose = new Pose2d(-35, 64, Math.toRadians(90));
 
     private int cycle = 1;
@@ -45,207 +57,248 @@ public class FixedRightAuto extends LinearOpMode {
     private SampleMecanumDrive drive;
     private Lift lift;
     private Intake intake;
+    private HardwareHub hub;
+    private SensorPoller sensorPoller;
+    private SensorSnapshot sensors;
+    private BatteryMonitor batteryMonitor;
+    private LoopRunner loopRunner = new LoopRunner();
     private AprilTagVisionPipeline pipeline;
 
     private Location location = Location.LEFT;
     private boolean parking = false;
 
-    private ElapsedTime eTime = new ElapsedTime(MILLISECONDS);
+    private ElapsedTime eTime = new Clock.Timer(MILLISECONDS);
 
     @Override
     public void runOpMode() throws InterruptedException {
-        drive = new SampleMecanumDrive(hardwareMap);
-        lift = new Lift(hardwareMap, telemetry);
-        intake = new Intake(hardwareMap, telemetry);
+        // nothing carries over from the last OpMode: a replay that didn't finish can leave the clock frozen,
+        // the dashboard would keep the auto's path and values, and the metrics would add up across runs
+        Clock.useSystemTime();
+        Dashboard.reset();
+        Metrics.reset();
+        hub = new HardwareHub(hardwareMap);
+        batteryMonitor = new BatteryMonitor(hardwareMap);
+        sensorPoller = new SensorPoller(hardwareMap, true);
+        drive = new SampleMecanumDrive(hardwareMap, sensorPoller, batteryMonitor);
+        lift = new Lift(hardwareMap, telemetry, batteryMonitor);
+        sensors = new SensorSnapshot(sensorPoller);
+        intake = new Intake(hardwareMap, telemetry, sensors, batteryMonitor);
         pipeline = new AprilTagVisionPipeline();
 
         pipeline.init(hardwareMap, telemetry);
 
-        drive.setPoseEstimate(startPose);
+        sensorPoller.start();
+        try {
+            drive.setPoseEstimate(startPose);
 
-        intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
+            intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
 
-        TrajectorySequence driveToSpot = drive.trajectorySequenceBuilder(startPose)
-                .back(36)
-                .splineToSplineHeading(new Pose2d(-30, 12.5, Math.toRadians(180)), Math.toRadians(0))
-                .back(4)
-                .waitSeconds(1)
-                .build();
+            TrajectorySequence driveToSpot = drive.trajectorySequenceBuilder(startPose)
+                    .back(36)
+                    .splineToSplineHeading(new Pose2d(-30, 12.5, Math.toRadians(180)), Math.toRadians(0))
+                    .back(4)
+                    .waitSeconds(1)
+                    .build();
 
-        TrajectorySequence leftPark = drive.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-12, 12))
-                .turn(Math.toRadians(90))
-                .build();
+            TrajectorySequence leftPark = drive.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-12, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
 
-        TrajectorySequence midPark = drive.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-36, 12))
-                .turn(Math.toRadians(90))
-                .build();
+            TrajectorySequence midPark = drive.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-36, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
 
-        TrajectorySequence rightPark = drive.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-60, 12))
-                .turn(Math.toRadians(90))
-                .build();
+            TrajectorySequence rightPark = drive.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-60, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
 
-        while (opModeInInit()) {
-            location = pipeline.visionLoop(telemetry);
-        }
+            FlightRecorder.start("FixedRightAuto");
+
+            while (opModeInInit()) {
+                location = pipeline.visionLoop(telemetry);
+            }
+
+            drive.followTrajectorySequenceAsync(driveToSpot);
+            lift.setLiftState(Lift.LiftState.RETRACT);
 
-        drive.followTrajectorySequenceAsync(driveToSpot);
-        lift.setLiftState(Lift.LiftState.RETRACT);
-
-        double startTime = getRuntime();
-
-        while (opModeIsActive()) {
-            switch (autoState) {
-                case DRIVE_TO_SPOT:
-                    if (!drive.isBusy()) {
-                        lift.setLiftState(Lift.LiftState.HIGH);
-                        intake.extendAuto();
-                        intake.setV4bPos(Intake.stackPositions[cycle - 1]);
-                        intake.release();
-                        autoState = AutoState.DROPPING;
-                    }
-                    break;
-
-                case DROPPING:
-                    if (lift.canControlArm()) {
-                        lift.setYawArmAngle(-90);
-                    }
-
-                    if (!lift.isBusy() && !lift.isYawArmBusy()) {
-                        lift.openGrabber();
-                        eTime.reset();
-                        autoState = AutoState.OPENING;
-                    }
-                    break;
-
-                case OPENING:
-                    if (!intake.isBusy() && eTime.time() > 500) {
-                        lift.setLiftState(Lift.LiftState.RETRACT);
-
-                        intake.grab();
-                        telemetry.addLine("Closing claw");
-
-                        autoState = AutoState.GRAB_CONE;
-                    }
-                    break;
-
-                case GRAB_CONE:
-                    if (!intake.isClawBusy()) {
-                        telemetry.addLine("Retracting v4b");
-                        intake.setV4bPos(Intake.v4bRetractedPos);
-                        autoState = AutoState.RETRIEVE_CONE;
-                    }
-                    break;
-
-                case RETRIEVE_CONE:
-                    if (!intake.isV4BBusy()) {
-                        telemetry.addLine("Retracting intake");
-                        intake.retractPart(Intake.v4bRetractedPos);
-                        autoState = AutoState.RETRIEVING;
-                    }
-                    break;
-
-                case RETRIEVING:
-                    if (!intake.isBusy()) {
-                        lift.setLiftState(Lift.LiftState.COLLECT);
-                        autoState = AutoState.COLLECT;
-                    }
-                    break;
-
-                case COLLECT:
-                    if (!lift.isBusy()) {
-                        lift.closeGrabber();
-                        eTime.reset();
-                        autoState = AutoState.RELEASE_CONE;
-                    }
-                    break;
-
-                case RELEASE_CONE:
-                    if (eTime.time() > 500) {
-                        intake.release();
-                        autoState = AutoState.RELEASING;
-                    }
-                    break;
-
-                case RELEASING:
-                    if (!intake.isClawBusy()) {
-                        eTime.reset();
-                        autoState = AutoState.CLOSING;
-                    }
-                    break;
-
-                case CLOSING:
-                    if (eTime.time() > 0.5) {
-                        intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
-                        autoState = AutoState.RETRACTING;
-                    }
-                    break;
-
-                case RETRACTING:
-                    if (!intake.isClawBusy() && !intake.isV4BBusy()) {
-                        if (cycle < numCycles) {
+            double startTime = getRuntime();
+
+            loopRunner.start();
+
+            while (opModeIsActive()) {
+                double elapsed = loopRunner.sync();
+
+                hub.update();
+                sensors.update();
+
+                switch (autoState) {
+                    case DRIVE_TO_SPOT:
+                        if (!drive.isBusy()) {
+                            lift.setLiftState(Lift.LiftState.HIGH);
+                            intake.extendAuto();
+                            intake.setV4bPos(Intake.stackPositions[cycle - 1]);
+                            intake.release();
+                            autoState = AutoState.DROPPING;
+                        }
+                        break;
+
+                    case DROPPING:
+                        if (lift.canControlArm()) {
+                            lift.setYawArmAngle(-90);
+                        }
+
+                        if (!lift.isBusy() && !lift.isYawArmBusy()) {
+                            lift.openGrabber();
                             eTime.reset();
-                            cycle++;
-                            autoState = AutoState.WAIT_FOR_DEPOSIT;
-                        } else {
-                            autoState = AutoState.CHOOSE_PARK_LOCATION;
+                            autoState = AutoState.OPENING;
                         }
-                    }
-                    break;
-
-                case WAIT_FOR_DEPOSIT:
-                    if (eTime.time() > 200) {
-                        lift.setLiftState(Lift.LiftState.HIGH);
-                        intake.extendAuto();
-                        intake.setV4bPos(Intake.stackPositions[cycle - 1]);
-                        intake.release();
-                        autoState = AutoState.DROPPING;
-                    }
-                    break;
-
-                case CHOOSE_PARK_LOCATION:
-                    switch (location) {
-                        case LEFT:
-                            drive.followTrajectorySequenceAsync(leftPark);
-                            break;
-                        case MIDDLE:
-                            drive.followTrajectorySequenceAsync(midPark);
-                            break;
-                        case RIGHT:
-                            drive.followTrajectorySequenceAsync(rightPark);
-                            break;
-                    }
-                    lift.setLiftState(Lift.LiftState.ZERO);
-                    intake.retractFully();
-                    autoState = AutoState.PARK;
-                    parking = true;
-                    break;
-
-                case PARK:
-                    if (!drive.isBusy()) {
-                        autoState = AutoState.IDLE;
-                    }
-                    break;
-
-                case IDLE:
-                    break;
-            }
+                        break;
 
-            if (getRuntime() - startTime > 25 && !parking) {
-                autoState = AutoState.CHOOSE_PARK_LOCATION;
-            }
+                    case OPENING:
+                        if (!intake.isBusy() && eTime.time() > 500) {
+                            lift.setLiftState(Lift.LiftState.RETRACT);
 
-            drive.update();
-            lift.periodic();
-            intake.periodic();
+                            intake.grab();
+                            telemetry.addLine("Closing claw");
 
-            telemetry.addData("State", autoState);
-            telemetry.addData("Intake ticks", intake.getSlidePosition());
-            telemetry.addData("Runtime", getRuntime());
-            telemetry.update();
+                            autoState = AutoState.GRAB_CONE;
+                        }
+                        break;
+
+                    case GRAB_CONE:
+                        if (!intake.isClawBusy()) {
+                            telemetry.addLine("Retracting v4b");
+                            intake.setV4bPos(Intake.v4bRetractedPos);
+                            autoState = AutoState.RETRIEVE_CONE;
+                        }
+                        break;
 
+                    case RETRIEVE_CONE:
+                        if (!intake.isV4BBusy()) {
+                            telemetry.addLine("Retracting intake");
+                            intake.retractPart(Intake.v4bRetractedPos);
+                            autoState = AutoState.RETRIEVING;
+                        }
+                        break;
+
+                    case RETRIEVING:
+                        if (!intake.isBusy()) {
+                            lift.setLiftState(Lift.LiftState.COLLECT);
+                            autoState = AutoState.COLLECT;
+                        }
+                        break;
+
+                    case COLLECT:
+                        if (!lift.isBusy()) {
+                            lift.closeGrabber();
+                            eTime.reset();
+                            autoState = AutoState.RELEASE_CONE;
+                        }
+                        break;
+
+                    case RELEASE_CONE:
+                        if (eTime.time() > 500) {
+                            intake.release();
+                            autoState = AutoState.RELEASING;
+                        }
+                        break;
+
+                    case RELEASING:
+                        if (!intake.isClawBusy()) {
+                            eTime.reset();
+                            autoState = AutoState.CLOSING;
+                        }
+                        break;
+
+                    case CLOSING:
+                        if (eTime.time() > 0.5) {
+                            intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
+                            autoState = AutoState.RETRACTING;
+                        }
+                        break;
+
+                    case RETRACTING:
+                        if (!intake.isClawBusy() && !intake.isV4BBusy()) {
+                            if (cycle < numCycles) {
+                                eTime.reset();
+                                cycle++;
+                                autoState = AutoState.WAIT_FOR_DEPOSIT;
+                            } else {
+                                autoState = AutoState.CHOOSE_PARK_LOCATION;
+                            }
+                        }
+                        break;
+
+                    case WAIT_FOR_DEPOSIT:
+                        if (eTime.time() > 200) {
+                            lift.setLiftState(Lift.LiftState.HIGH);
+                            intake.extendAuto();
+                            intake.setV4bPos(Intake.stackPositions[cycle - 1]);
+                            intake.release();
+                            autoState = AutoState.DROPPING;
+                        }
+                        break;
+
+                    case CHOOSE_PARK_LOCATION:
+                        switch (location) {
+                            case LEFT:
+                                drive.followTrajectorySequenceAsync(leftPark);
+                                break;
+                            case MIDDLE:
+                                drive.followTrajectorySequenceAsync(midPark);
+                                break;
+                            case RIGHT:
+                                drive.followTrajectorySequenceAsync(rightPark);
+                                break;
+                        }
+                        lift.setLiftState(Lift.LiftState.ZERO);
+                        intake.retractFully();
+                        autoState = AutoState.PARK;
+                        parking = true;
+                        break;
+
+                    case PARK:
+                        if (!drive.isBusy()) {
+                            autoState = AutoState.IDLE;
+                        }
+                        break;
+
+                    case IDLE:
+                        break;
+                }
+
+                if (getRuntime() - startTime > 25 && !parking) {
+                    autoState = AutoState.CHOOSE_PARK_LOCATION;
+                }
+
+                drive.update();
+                lift.periodic(elapsed);
+                intake.periodic();
+                Dashboard.periodic();
+
+                telemetry.addData("State", autoState);
+                telemetry.addData("Intake ticks", intake.getSlidePosition());
+                telemetry.addData("Runtime", getRuntime());
+                telemetry.addData("Issued writes", ActuatorCache.getIssuedWrites());
+                telemetry.addData("Skipped writes", ActuatorCache.getSkippedWrites());
+                telemetry.addData("Non-bulk commands", HardwareHub.getNonBulkCommands());
+                telemetry.addData("Loop overruns", loopRunner.getOverruns());
+                telemetry.update();
+
+                ActuatorCache.periodic();
+
+                FlightRecorder.set(STATE, autoState.ordinal());
+                Metrics.periodic();
+                FlightRecorder.commit();
+            }
+        } finally {
+            sensorPoller.stop();
+            FlightRecorder.stop();
         }
+
+        Metrics.dump("FixedRightAuto");
     }
 }
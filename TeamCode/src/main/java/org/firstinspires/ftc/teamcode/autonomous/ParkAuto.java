@@ -9,6 +9,8 @@ import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumD
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
 import org.firstinspires.ftc.teamcode.vision.signal.AprilTagVisionPipeline;
 import org.firstinspires.ftc.teamcode.vision.signal.Location;
 
@@ -38,6 +40,10 @@ public class ParkAuto extends LinearOpMode {
 
     @Override
     public void runOpMode() throws InterruptedException {
+        // nothing carries over from the last OpMode: a replay that didn't finish can leave the clock frozen,
+        // and the dashboard would keep the auto's path and values
+        Clock.useSystemTime();
+        Dashboard.reset();
         drive = new SampleMecanumDrive(hardwareMap);
         pipeline = new AprilTagVisionPipeline();
 
@@ -101,6 +107,7 @@ public class ParkAuto extends LinearOpMode {
             }
 
             drive.update();
+            Dashboard.periodic();
 
             telemetry.addData("State", state);
             telemetry.update();
@@ -8,6 +8,8 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
 import org.firstinspires.ftc.teamcode.vision.signal.AprilTagVisionPipeline;
 import org.firstinspires.ftc.teamcode.vision.signal.Location;
 
@@ -44,6 +46,10 @@ public class PreloadParkAuto extends LinearOpMode {
 
     @Override
     public void runOpMode() throws InterruptedException {
+        // nothing carries over from the last OpMode: a replay that didn't finish can leave the clock frozen,
+        // and the dashboard would keep the auto's path and values
+        Clock.useSystemTime();
+        Dashboard.reset();
         drive = new SampleMecanumDrive(hardwareMap);
         lift = new Lift(hardwareMap, telemetry);
         pipeline = new AprilTagVisionPipeline();
@@ -130,6 +136,7 @@ public class PreloadParkAuto extends LinearOpMode {
 
             drive.update();
             lift.periodic();
+            Dashboard.periodic();
 
             telemetry.addData("State", state);
             telemetry.update();
@@ -10,15 +10,31 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.robot.hardware.ActuatorCache;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.HardwareHub;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorPoller;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
 import org.firstinspires.ftc.teamcode.vision.signal.AprilTagVisionPipeline;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LoopProfiler;
+import org.firstinspires.ftc.teamcode.utils.LoopRunner;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
 import org.firstinspires.ftc.teamcode.vision.signal.Location;
 
 @Autonomous(preselectTeleOp = "CompTeleOp")
 public class RightAuto extends LinearOpMode {
     public static int numCycles = 3;
 
+    private static final int SENSORS = LoopProfiler.section("sensors");
+    private static final int STATE_MACHINE = LoopProfiler.section("state machine");
+    private static final int TELEMETRY = LoopProfiler.section("telemetry");
+    private static final int STATE = FlightRecorder.field("auto state");
+
 
     enum State {
         DRIVE_TO_SPOT,
@@ -43,6 +59,11 @@ public class RightAuto extends LinearOpMode {
     SampleMecanumDrive drive;
     Lift lift;
     Intake intake;
+    HardwareHub hub;
+    SensorPoller sensorPoller;
+    SensorSnapshot sensors;
+    BatteryMonitor batteryMonitor;
+    LoopRunner loopRunner = new LoopRunner();
     AprilTagVisionPipeline pipeline;
 
     Location location = Location.LEFT;
@@ -51,199 +72,246 @@ public class RightAuto extends LinearOpMode {
     boolean flag2 = false;
     boolean parking = false;
 
-    ElapsedTime eTime = new ElapsedTime(MILLISECONDS);
-    ElapsedTime intakeTimer = new ElapsedTime(MILLISECONDS);
+    ElapsedTime eTime = new Clock.Timer(MILLISECONDS);
+    ElapsedTime intakeTimer = new Clock.Timer(MILLISECONDS);
     double waitTime = 0;
     State nextState = State.IDLE;
 
     @Override
     public void runOpMode() throws InterruptedException {
-        drive = new SampleMecanumDrive(hardwareMap);
-        lift = new Lift(hardwareMap, telemetry);
-        intake = new Intake(hardwareMap, telemetry);
+        // nothing carries over from the last OpMode: a replay that didn't finish can leave the clock frozen,
+        // the dashboard would keep the auto's path and values, and the metrics would add up across runs
+        Clock.useSystemTime();
+        Dashboard.reset();
+        Metrics.reset();
+        hub = new HardwareHub(hardwareMap);
+        batteryMonitor = new BatteryMonitor(hardwareMap);
+        sensorPoller = new SensorPoller(hardwareMap, true);
+        drive = new SampleMecanumDrive(hardwareMap, sensorPoller, batteryMonitor);
+        lift = new Lift(hardwareMap, telemetry, batteryMonitor);
+        sensors = new SensorSnapshot(sensorPoller);
+        intake = new Intake(hardwareMap, telemetry, sensors, batteryMonitor);
         pipeline = new AprilTagVisionPipeline();
 
         pipeline.init(hardwareMap, telemetry);
 
-        drive.setPoseEstimate(startPose);
+        sensorPoller.start();
+        try {
+            drive.setPoseEstimate(startPose);
 
-        intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
+            intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
 
-        TrajectorySequence driveToSpot = drive.trajectorySequenceBuilder(startPose)
-                .back(36)
-                .splineToSplineHeading(new Pose2d(-30, 12.5, Math.toRadians(180)), Math.toRadians(0))
-                .back(4)
-                .waitSeconds(1)
-                .build();
+            TrajectorySequence driveToSpot = drive.trajectorySequenceBuilder(startPose)
+                    .back(36)
+                    .splineToSplineHeading(new Pose2d(-30, 12.5, Math.toRadians(180)), Math.toRadians(0))
+                    .back(4)
+                    .waitSeconds(1)
+                    .build();
 
-        TrajectorySequence leftPark = drive.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-12, 12))
-                .turn(Math.toRadians(90))
-                .build();
+            TrajectorySequence leftPark = drive.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-12, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
 
-        TrajectorySequence midPark = drive.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-36, 12))
-                .turn(Math.toRadians(90))
-                .build();
+            TrajectorySequence midPark = drive.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-36, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
 
-        TrajectorySequence rightPark = drive.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-60, 12))
-                .turn(Math.toRadians(90))
-                .build();
+            TrajectorySequence rightPark = drive.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-60, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
 
-        while (opModeInInit()) {
-            location = pipeline.visionLoop(telemetry);
-        }
+            FlightRecorder.start("RightAuto");
 
-        drive.followTrajectorySequenceAsync(driveToSpot);
-        lift.setLiftState(Lift.LiftState.RETRACT);
-
-        double startTime = getRuntime();
-
-        while (opModeIsActive()) {
-            switch (state) {
-                case DRIVE_TO_SPOT:
-                    if (!drive.isBusy()) {
-                        state = State.DEPOSIT;
-                    }
-                    break;
-
-                case DEPOSIT:
-                    deposit();
-                    state = State.WAIT;
-                    nextState = State.DEPOSIT_2;
-                    waitTime = 2000;
-                    flag2 = true;
-                    eTime.reset();
-                    break;
-
-                case DEPOSIT_2:
-                    deposit();
-                    if (!lift.isBusy() && !intake.isBusy()) {
-                        lift.openGrabber();
-                        lift.periodic();
-                        eTime.reset();
-                        state = State.OPENING;
-                    }
-                    break;
+            while (opModeInInit()) {
+                location = pipeline.visionLoop(telemetry);
+            }
 
-                case OPENING:
-                    if (eTime.time() > 0.5) {
-                        state = State.WAIT;
-                        nextState = State.GRAB_CONE;
-                        waitTime = 200;
-                        eTime.reset();
-                    }
-                    break;
+            drive.followTrajectorySequenceAsync(driveToSpot);
+            lift.setLiftState(Lift.LiftState.RETRACT);
+
+            double startTime = getRuntime();
+
+            LoopProfiler.reset();
+            loopRunner.start();
+
+            while (opModeIsActive()) {
+                loopRunner.sync();
 
-                case GRAB_CONE:
-                    grabCone();
+                LoopProfiler.start(SENSORS);
+                hub.update();
+                sensors.update();
+                LoopProfiler.end(SENSORS);
 
-                    if (flag) {
+                LoopProfiler.start(STATE_MACHINE);
+                switch (state) {
+                    case DRIVE_TO_SPOT:
+                        if (!drive.isBusy()) {
+                            state = State.DEPOSIT;
+                        }
+                        break;
+
+                    case DEPOSIT:
+                        deposit();
                         state = State.WAIT;
-                        nextState = State.COLLECT;
-                        waitTime = 200;
+                        nextState = State.DEPOSIT_2;
+                        waitTime = 2000;
+                        flag2 = true;
                         eTime.reset();
-                        flag = false;
-                    }
+                        break;
 
-                    break;
+                    case DEPOSIT_2:
+                        deposit();
+                        if (!lift.isBusy() && !intake.isBusy()) {
+                            lift.openGrabber();
+                            lift.periodic();
+                            eTime.reset();
+                            state = State.OPENING;
+                        }
+                        break;
 
-                case COLLECT:
-                    lift.setLiftState(Lift.LiftState.COLLECT);
-                    lift.periodic();
+                    case OPENING:
+                        if (eTime.time() > 0.5) {
+                            state = State.WAIT;
+                            nextState = State.GRAB_CONE;
+                            waitTime = 200;
+                            eTime.reset();
+                        }
+                        break;
 
-                    if (!lift.isBusy()) {
-                        lift.closeGrabber();
-                        eTime.reset();
-                        state = State.RELEASE_CONE;
-                    }
-                    break;
-
-                case RELEASE_CONE:
-                    if (eTime.time() > 500) {
-                        intake.release();
-                        if (!intake.isClawBusy()) {
+                    case GRAB_CONE:
+                        grabCone();
+
+                        if (flag) {
+                            state = State.WAIT;
+                            nextState = State.COLLECT;
+                            waitTime = 200;
+                            eTime.reset();
+                            flag = false;
+                        }
+
+                        break;
+
+                    case COLLECT:
+                        lift.setLiftState(Lift.LiftState.COLLECT);
+                        lift.periodic();
+
+                        if (!lift.isBusy()) {
+                            lift.closeGrabber();
                             eTime.reset();
-                            state = State.CLOSING;
+                            state = State.RELEASE_CONE;
                         }
-                    }
-                    break;
-
-                case CLOSING:
-                    if (eTime.time() > 0.5) {
-                        intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
-                        intake.periodic();
-                        if (!intake.isClawBusy() && !intake.isV4BBusy()) {
-                            if (cycle < numCycles) {
-                                state = State.WAIT;
-                                nextState = State.DEPOSIT;
-                                waitTime = 200;
+                        break;
+
+                    case RELEASE_CONE:
+                        if (eTime.time() > 500) {
+                            intake.release();
+                            if (!intake.isClawBusy()) {
                                 eTime.reset();
-                                intakeTimer.reset();
-                                cycle++;
-                            } else {
-                                state = State.CHOOSE_PARK_LOCATION;
+                                state = State.CLOSING;
                             }
                         }
-                    }
-                    break;
-
-                case CHOOSE_PARK_LOCATION:
-                    switch (location) {
-                        case LEFT:
-                            drive.followTrajectorySequenceAsync(leftPark);
-                            break;
-                        case MIDDLE:
-                            drive.followTrajectorySequenceAsync(midPark);
-                            break;
-                        case RIGHT:
-                            drive.followTrajectorySequenceAsync(rightPark);
-                            break;
-                    }
-                    state = State.PARK;
-                    parking = true;
-                    break;
-
-                case PARK:
-                    if (!drive.isBusy()) {
-                        lift.setLiftState(Lift.LiftState.ZERO);
-                        intake.retractFully();
-                        state = State.IDLE;
-                    }
-                    break;
-
-                case WAIT:
-                    if (eTime.time() > waitTime) {
-                        state = nextState;
-                        flag2 = false;
-                    }
-                    if (flag2) {
-                        deposit();
-                    }
+                        break;
+
+                    case CLOSING:
+                        if (eTime.time() > 0.5) {
+                            intake.setV4bPos(Intake.v4bCompletelyRetractedPos);
+                            intake.periodic();
+                            if (!intake.isClawBusy() && !intake.isV4BBusy()) {
+                                if (cycle < numCycles) {
+                                    state = State.WAIT;
+                                    nextState = State.DEPOSIT;
+                                    waitTime = 200;
+                                    eTime.reset();
+                                    intakeTimer.reset();
+                                    cycle++;
+                                } else {
+                                    state = State.CHOOSE_PARK_LOCATION;
+                                }
+                            }
+                        }
+                        break;
+
+                    case CHOOSE_PARK_LOCATION:
+                        switch (location) {
+                            case LEFT:
+                                drive.followTrajectorySequenceAsync(leftPark);
+                                break;
+                            case MIDDLE:
+                                drive.followTrajectorySequenceAsync(midPark);
+                                break;
+                            case RIGHT:
+                                drive.followTrajectorySequenceAsync(rightPark);
+                                break;
+                        }
+                        state = State.PARK;
+                        parking = true;
+                        break;
+
+                    case PARK:
+                        if (!drive.isBusy()) {
+                            lift.setLiftState(Lift.LiftState.ZERO);
+                            intake.retractFully();
+                            state = State.IDLE;
+                        }
+                        break;
 
-                    break;
+                    case WAIT:
+                        if (eTime.time() > waitTime) {
+                            state = nextState;
+                            flag2 = false;
+                        }
+                        if (flag2) {
+                            deposit();
+                        }
 
-                case IDLE:
-                    break;
-            }
+                        break;
 
-            if (getRuntime() - startTime > 25 && !parking) {
-                state = State.CHOOSE_PARK_LOCATION;
-                intake.retractPart(Intake.v4bCompletelyRetractedPos);
-                lift.setLiftState(Lift.LiftState.RETRACT);
-            }
+                    case IDLE:
+                        break;
+                }
 
-            drive.update();
-            lift.periodic();
-            intake.periodic();
+                if (getRuntime() - startTime > 25 && !parking) {
+                    state = State.CHOOSE_PARK_LOCATION;
+                    intake.retractPart(Intake.v4bCompletelyRetractedPos);
+                    lift.setLiftState(Lift.LiftState.RETRACT);
+                }
+                LoopProfiler.end(STATE_MACHINE);
 
-            telemetry.addData("State", state);
-            telemetry.addData("Intake ticks", intake.getSlidePosition());
-            telemetry.addData("Runtime", getRuntime());
-            telemetry.update();
+                drive.update();
+                lift.periodic();
+                intake.periodic();
 
+                LoopProfiler.start(TELEMETRY);
+                telemetry.addData("State", state);
+                telemetry.addData("Intake ticks", intake.getSlidePosition());
+                telemetry.addData("Runtime", getRuntime());
+                telemetry.addData("Issued writes", ActuatorCache.getIssuedWrites());
+                telemetry.addData("Skipped writes", ActuatorCache.getSkippedWrites());
+                telemetry.addData("Non-bulk commands", HardwareHub.getNonBulkCommands());
+                telemetry.addData("IMU sample rate", sensorPoller.getImuSampleRate());
+                telemetry.addData("Loop overruns", loopRunner.getOverruns());
+                telemetry.update();
+
+                ActuatorCache.periodic();
+                LoopProfiler.end(TELEMETRY);
+
+                FlightRecorder.set(STATE, state.ordinal());
+                Metrics.periodic();
+                FlightRecorder.commit();
+
+                LoopProfiler.periodic();
+                Dashboard.periodic();
+            }
+        } finally {
+            sensorPoller.stop();
+            FlightRecorder.stop();
         }
+
+        LoopProfiler.dump("RightAuto");
+        Metrics.dump("RightAuto");
     }
 
     public void deposit() {
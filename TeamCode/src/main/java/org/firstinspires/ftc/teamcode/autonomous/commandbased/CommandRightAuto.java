@@ -19,21 +19,41 @@ import org.firstinspires.ftc.teamcode.autonomous.commandbased.commands.GoToLiftS
 import org.firstinspires.ftc.teamcode.autonomous.commandbased.commands.ResetLiftAndIntake;
 import org.firstinspires.ftc.teamcode.autonomous.commandbased.groups.ScoreCone;
 import org.firstinspires.ftc.teamcode.autonomous.commandbased.subsystems.DriveSubsystem;
+import org.firstinspires.ftc.teamcode.robot.hardware.ActuatorCache;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.HardwareHub;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorPoller;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequence;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 import org.firstinspires.ftc.teamcode.vision.signal.AprilTagVisionPipeline;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LoopProfiler;
+import org.firstinspires.ftc.teamcode.utils.LoopRunner;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
 import org.firstinspires.ftc.teamcode.vision.signal.Location;
 
 import java.util.HashMap;
 
 @Autonomous
 public class CommandRightAuto extends LinearOpMode {
+    private static final int SENSORS = LoopProfiler.section("sensors");
+    private static final int SCHEDULER = LoopProfiler.section("scheduler");
+    private static final int TELEMETRY = LoopProfiler.section("telemetry");
+
     private CommandScheduler scheduler;
 
     private DriveSubsystem driveSubsystem;
     private Intake intakeSubsystem;
     private Lift liftSubsystem;
+    private HardwareHub hub;
+    private SensorPoller sensorPoller;
+    private SensorSnapshot sensors;
+    private BatteryMonitor batteryMonitor;
+    private LoopRunner loopRunner = new LoopRunner();
 
     private AprilTagVisionPipeline pipeline = new AprilTagVisionPipeline();
     private Location location = Location.LEFT;
@@ -47,11 +67,20 @@ public class CommandRightAuto extends LinearOpMode {
 
     @Override
     public void runOpMode() throws InterruptedException {
+        // nothing carries over from the last OpMode: a replay that didn't finish can leave the clock frozen,
+        // the dashboard would keep the auto's path and values, and the metrics would add up across runs
+        Clock.useSystemTime();
+        Dashboard.reset();
+        Metrics.reset();
         scheduler = CommandScheduler.getInstance();
 
-        driveSubsystem = new DriveSubsystem(hardwareMap);
-        intakeSubsystem = new Intake(hardwareMap, multipleTelemetry);
-        liftSubsystem = new Lift(hardwareMap, multipleTelemetry);
+        hub = new HardwareHub(hardwareMap);
+        batteryMonitor = new BatteryMonitor(hardwareMap);
+        sensorPoller = new SensorPoller(hardwareMap, true);
+        driveSubsystem = new DriveSubsystem(hardwareMap, sensorPoller, batteryMonitor);
+        sensors = new SensorSnapshot(sensorPoller);
+        intakeSubsystem = new Intake(hardwareMap, multipleTelemetry, sensors, batteryMonitor);
+        liftSubsystem = new Lift(hardwareMap, multipleTelemetry, batteryMonitor);
 
         driveSubsystem.setPoseEstimate(startPose);
 
@@ -59,43 +88,93 @@ public class CommandRightAuto extends LinearOpMode {
 
         pipeline.init(hardwareMap, telemetry);
 
-        TrajectorySequence driveToSpot = driveSubsystem.trajectorySequenceBuilder(startPose)
-                .back(36)
-                .splineToSplineHeading(new Pose2d(-28, 12, Math.toRadians(180)), Math.toRadians(0))
-                .back(2)
-                .waitSeconds(1)
-                .build();
-
-        TrajectorySequence leftPark = driveSubsystem.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-12, 12))
-                .turn(Math.toRadians(90))
-                .build();
-
-        TrajectorySequence midPark = driveSubsystem.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-36, 12))
-                .turn(Math.toRadians(90))
-                .build();
-
-        TrajectorySequence rightPark = driveSubsystem.trajectorySequenceBuilder(driveToSpot.end())
-                .lineTo(new Vector2d(-60, 12))
-                .turn(Math.toRadians(90))
-                .build();
-
-        GoToLiftState retractCommand = new GoToLiftState(liftSubsystem, Lift.LiftState.RETRACT);
-        liftSubsystem.setDefaultCommand(retractCommand);
-
-        while (opModeInInit()) {
-            location = pipeline.visionLoop(telemetry);
-        }
+        sensorPoller.start();
+        try {
+            TrajectorySequence driveToSpot = driveSubsystem.trajectorySequenceBuilder(startPose)
+                    .back(36)
+                    .splineToSplineHeading(new Pose2d(-28, 12, Math.toRadians(180)), Math.toRadians(0))
+                    .back(2)
+                    .waitSeconds(1)
+                    .build();
+
+            TrajectorySequence leftPark = driveSubsystem.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-12, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
+
+            TrajectorySequence midPark = driveSubsystem.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-36, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
+
+            TrajectorySequence rightPark = driveSubsystem.trajectorySequenceBuilder(driveToSpot.end())
+                    .lineTo(new Vector2d(-60, 12))
+                    .turn(Math.toRadians(90))
+                    .build();
+
+            GoToLiftState retractCommand = new GoToLiftState(liftSubsystem, Lift.LiftState.RETRACT);
+            liftSubsystem.setDefaultCommand(retractCommand);
+
+            while (opModeInInit()) {
+                location = pipeline.visionLoop(telemetry);
+            }
+
+            scheduler.schedule(new SequentialCommandGroup(
+                    new ParallelDeadlineGroup(
+                            new FollowTrajectory(driveSubsystem, driveToSpot),
+                            new GoToLiftState(liftSubsystem, Lift.LiftState.GOING_UP)),
+                    new ScoreCone(intakeSubsystem, liftSubsystem, -90, Lift.LiftState.HIGH, 0.35),
+                    new ScoreCone(intakeSubsystem, liftSubsystem, -90, Lift.LiftState.HIGH, 0.30),
+                    new DepositCone(liftSubsystem, Lift.LiftState.HIGH, -90),
+                    new ParallelCommandGroup(
+                            new SelectCommand(
+                                    new HashMap<Object, Command>() {{
+                                        put(Location.LEFT, new FollowTrajectory(driveSubsystem, leftPark));
+                                        put(Location.MIDDLE, new FollowTrajectory(driveSubsystem, midPark));
+                                        put(Location.RIGHT, new FollowTrajectory(driveSubsystem, rightPark));
+                                    }},
+                                    () -> location
+                            ),
+                            new ResetLiftAndIntake(intakeSubsystem, liftSubsystem)
+                    )
+            ));
+
+            timerTrigger = new TimerTrigger(getRuntime());
+
+            FlightRecorder.start("CommandRightAuto");
+
+            LoopProfiler.reset();
+            loopRunner.start();
+
+            while (!isStopRequested() && opModeIsActive()) {
+                loopRunner.sync();
 
-        scheduler.schedule(new SequentialCommandGroup(
-                new ParallelDeadlineGroup(
-                        new FollowTrajectory(driveSubsystem, driveToSpot),
-                        new GoToLiftState(liftSubsystem, Lift.LiftState.GOING_UP)),
-                new ScoreCone(intakeSubsystem, liftSubsystem, -90, Lift.LiftState.HIGH, 0.35),
-                new ScoreCone(intakeSubsystem, liftSubsystem, -90, Lift.LiftState.HIGH, 0.30),
-                new DepositCone(liftSubsystem, Lift.LiftState.HIGH, -90),
-                new ParallelCommandGroup(
+                LoopProfiler.start(SENSORS);
+                hub.update();
+                sensors.update();
+                LoopProfiler.end(SENSORS);
+
+                LoopProfiler.start(SCHEDULER);
+                scheduler.run();
+                LoopProfiler.end(SCHEDULER);
+
+                LoopProfiler.start(TELEMETRY);
+                multipleTelemetry.addData("Issued writes", ActuatorCache.getIssuedWrites());
+                multipleTelemetry.addData("Skipped writes", ActuatorCache.getSkippedWrites());
+                multipleTelemetry.addData("Non-bulk commands", HardwareHub.getNonBulkCommands());
+                multipleTelemetry.addData("Loop overruns", loopRunner.getOverruns());
+                multipleTelemetry.update();
+                ActuatorCache.periodic();
+                LoopProfiler.end(TELEMETRY);
+
+                Metrics.periodic();
+                FlightRecorder.commit();
+
+                LoopProfiler.periodic();
+                Dashboard.periodic();
+
+                /*
+                timerTrigger.whenActive(new ParallelCommandGroup(
                         new SelectCommand(
                                 new HashMap<Object, Command>() {{
                                     put(Location.LEFT, new FollowTrajectory(driveSubsystem, leftPark));
@@ -105,30 +184,17 @@ public class CommandRightAuto extends LinearOpMode {
                                 () -> location
                         ),
                         new ResetLiftAndIntake(intakeSubsystem, liftSubsystem)
-                )
-        ));
-
-        timerTrigger = new TimerTrigger(getRuntime());
-
-        while (!isStopRequested() && opModeIsActive()) {
-            scheduler.run();
-            multipleTelemetry.update();
-
-            /*
-            timerTrigger.whenActive(new ParallelCommandGroup(
-                    new SelectCommand(
-                            new HashMap<Object, Command>() {{
-                                put(Location.LEFT, new FollowTrajectory(driveSubsystem, leftPark));
-                                put(Location.MIDDLE, new FollowTrajectory(driveSubsystem, midPark));
-                                put(Location.RIGHT, new FollowTrajectory(driveSubsystem, rightPark));
-                            }},
-                            () -> location
-                    ),
-                    new ResetLiftAndIntake(intakeSubsystem, liftSubsystem)
-            ));
-             */
+                ));
+                 */
+            }
+
+            scheduler.reset();
+        } finally {
+            sensorPoller.stop();
+            FlightRecorder.stop();
         }
 
-        scheduler.reset();
+        LoopProfiler.dump("CommandRightAuto");
+        Metrics.dump("CommandRightAuto");
     }
 }
@@ -4,13 +4,14 @@ import com.arcrobotics.ftclib.command.CommandBase;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 
 public class DepositCone extends CommandBase {
     private final Lift liftSubsystem;
     private final Lift.LiftState desiredState;
     private final int yawArmAngle;
 
-    private final ElapsedTime eTime = new ElapsedTime(ElapsedTime.Resolution.SECONDS);
+    private final ElapsedTime eTime = new Clock.Timer(ElapsedTime.Resolution.SECONDS);
 
     private enum DepositState {
         RAISING,
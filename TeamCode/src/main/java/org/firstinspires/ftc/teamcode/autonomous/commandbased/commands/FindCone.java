@@ -4,6 +4,7 @@ import com.arcrobotics.ftclib.command.CommandBase;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 
 public class FindCone extends CommandBase {
     private final Intake intakeSubsystem;
@@ -18,7 +19,7 @@ public class FindCone extends CommandBase {
 
     private FindState findState = FindState.IDLE;
 
-    private ElapsedTime eTime = new ElapsedTime(ElapsedTime.Resolution.SECONDS);
+    private ElapsedTime eTime = new Clock.Timer(ElapsedTime.Resolution.SECONDS);
 
     public FindCone(Intake subsystem, double pos) {
         intakeSubsystem = subsystem;
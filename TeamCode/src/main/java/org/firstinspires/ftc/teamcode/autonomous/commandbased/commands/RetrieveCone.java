@@ -4,11 +4,12 @@ import com.arcrobotics.ftclib.command.CommandBase;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 
 public class RetrieveCone extends CommandBase {
     private final Intake intakeSubsystem;
 
-    private final ElapsedTime eTime = new ElapsedTime(ElapsedTime.Resolution.SECONDS);
+    private final ElapsedTime eTime = new Clock.Timer(ElapsedTime.Resolution.SECONDS);
 
     private enum RetrieveState {
         GRABBING,
@@ -5,12 +5,13 @@ import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 
 public class TransferCone extends CommandBase {
     private final Intake intakeSubsystem;
     private final Lift liftSubsystem;
 
-    private final ElapsedTime eTime = new ElapsedTime(ElapsedTime.Resolution.SECONDS);
+    private final ElapsedTime eTime = new Clock.Timer(ElapsedTime.Resolution.SECONDS);
 
     private enum TransferState {
         RELEASE_CONE,
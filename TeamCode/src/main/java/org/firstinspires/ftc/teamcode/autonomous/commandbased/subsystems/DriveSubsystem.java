@@ -7,6 +7,8 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequence;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorPoller;
 
 public class DriveSubsystem extends SubsystemBase {
     private final SampleMecanumDrive drive;
@@ -15,6 +17,14 @@ public class DriveSubsystem extends SubsystemBase {
         drive = new SampleMecanumDrive(hardwareMap);
     }
 
+    public DriveSubsystem(HardwareMap hardwareMap, SensorPoller sensorPoller) {
+        drive = new SampleMecanumDrive(hardwareMap, sensorPoller);
+    }
+
+    public DriveSubsystem(HardwareMap hardwareMap, SensorPoller sensorPoller, BatteryMonitor batteryMonitor) {
+        drive = new SampleMecanumDrive(hardwareMap, sensorPoller, batteryMonitor);
+    }
+
     public void periodic() {
         drive.update();
     }
@@ -25,7 +25,6 @@ import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.PIDFCoefficients;
-import com.qualcomm.robotcore.hardware.VoltageSensor;
 import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
 import com.spartronics4915.lib.T265Camera;
 
@@ -33,6 +32,15 @@ import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.T
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequenceBuilder;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.TrajectorySequenceRunner;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LynxModuleUtil;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorPoller;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LoopProfiler;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
+import org.firstinspires.ftc.teamcode.utils.PoseHistory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -70,26 +78,66 @@ public class SampleMecanumDrive extends MecanumDrive {
     private static final TrajectoryVelocityConstraint VEL_CONSTRAINT = getVelocityConstraint(MAX_VEL, MAX_ANG_VEL, TRACK_WIDTH);
     private static final TrajectoryAccelerationConstraint ACCEL_CONSTRAINT = getAccelerationConstraint(MAX_ACCEL);
 
+    private static final int UPDATE = LoopProfiler.section("drive");
+    private static final int LOCALIZER = LoopProfiler.section("localizer");
+    private static final int FOLLOWER = LoopProfiler.section("follower");
+
+    private static final int STALE_HEADING_READS = Metrics.counter("drive", "stale heading reads");
+
+    // in the same order as motors
+    private static final int[] POSITIONS = {
+            FlightRecorder.field("flMotor position"),
+            FlightRecorder.field("rlMotor position"),
+            FlightRecorder.field("rrMotor position"),
+            FlightRecorder.field("frMotor position")
+    };
+    private static final int[] POWERS = {
+            FlightRecorder.field("flMotor power"),
+            FlightRecorder.field("rlMotor power"),
+            FlightRecorder.field("rrMotor power"),
+            FlightRecorder.field("frMotor power")
+    };
+
     private TrajectoryFollower follower;
 
     private DcMotorEx fl, bl, br, fr;
     private List<DcMotorEx> motors;
 
     private BNO055IMU imu;
-    private VoltageSensor batteryVoltageSensor;
+    private BatteryMonitor batteryMonitor;
+    private SensorPoller sensorPoller;
 
     public SampleMecanumDrive(HardwareMap hardwareMap) {
+        this(hardwareMap, null);
+    }
+
+    /**
+     * @param sensorPoller if not null, heading and heading velocity are taken from the poller's latest sample
+     *                     instead of blocking on the IMU. It should be built with heading velocity polling enabled.
+     */
+    public SampleMecanumDrive(HardwareMap hardwareMap, SensorPoller sensorPoller) {
+        this(hardwareMap, sensorPoller, new BatteryMonitor(hardwareMap));
+    }
+
+    /**
+     * @param batteryMonitor shared with the other subsystems so the battery is only sampled once for the robot
+     */
+    public SampleMecanumDrive(HardwareMap hardwareMap, SensorPoller sensorPoller, BatteryMonitor batteryMonitor) {
         super(kV, kA, kStatic, TRACK_WIDTH, TRACK_WIDTH, LATERAL_MULTIPLIER);
 
+        this.sensorPoller = sensorPoller;
+        this.batteryMonitor = batteryMonitor;
+
         follower = new HolonomicPIDVAFollower(TRANSLATIONAL_PID, TRANSLATIONAL_PID, HEADING_PID,
-                new Pose2d(0.2, 0.2, Math.toRadians(0.4)), 1.2);
+                new Pose2d(0.2, 0.2, Math.toRadians(0.4)), 1.2, Clock.nano());
 
         LynxModuleUtil.ensureMinimumFirmwareVersion(hardwareMap);
 
-        batteryVoltageSensor = hardwareMap.voltageSensor.iterator().next();
-
         for (LynxModule module : hardwareMap.getAll(LynxModule.class)) {
-            module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
+            // a HardwareHub that already owns the bulk cache clears it once per loop, so leave it alone
+            if (module.getBulkCachingMode() != LynxModule.BulkCachingMode.MANUAL) {
+                module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
+            }
         }
 
         imu = hardwareMap.get(BNO055IMU.class, "imu");
@@ -120,10 +168,10 @@ public class SampleMecanumDrive extends MecanumDrive {
         // BNO055IMUUtil.remapZAxis(imu, AxisDirection.NEG_Y);
 
 
-        fl = hardwareMap.get(DcMotorEx.class, "flMotor");
-        fr = hardwareMap.get(DcMotorEx.class, "frMotor");
-        bl = hardwareMap.get(DcMotorEx.class, "rlMotor");
-        br = hardwareMap.get(DcMotorEx.class, "rrMotor");
+        fl = new CachingMotor(hardwareMap.get(DcMotorEx.class, "flMotor"));
+        fr = new CachingMotor(hardwareMap.get(DcMotorEx.class, "frMotor"));
+        bl = new CachingMotor(hardwareMap.get(DcMotorEx.class, "rlMotor"));
+        br = new CachingMotor(hardwareMap.get(DcMotorEx.class, "rrMotor"));
 
         motors = Arrays.asList(fl, bl, br, fr);
 
@@ -214,15 +262,31 @@ public class SampleMecanumDrive extends MecanumDrive {
         return trajectorySequenceRunner.getLastPoseError();
     }
 
+    public PoseHistory getPoseHistory() {
+        return trajectorySequenceRunner.getPoseHistory();
+    }
+
     public void update() {
+        LoopProfiler.start(UPDATE);
+
+        LoopProfiler.start(LOCALIZER);
         updatePoseEstimate();
+        LoopProfiler.end(LOCALIZER);
+
+        LoopProfiler.start(FOLLOWER);
         DriveSignal signal = trajectorySequenceRunner.update(getPoseEstimate(), getPoseVelocity());
+        LoopProfiler.end(FOLLOWER);
+
         if (signal != null) setDriveSignal(signal);
+
+        LoopProfiler.end(UPDATE);
     }
 
     public void waitForIdle() {
-        while (!Thread.currentThread().isInterrupted() && isBusy())
+        while (!Thread.currentThread().isInterrupted() && isBusy()) {
             update();
+            Dashboard.periodic();
+        }
     }
 
     public boolean isBusy() {
@@ -244,7 +308,7 @@ public class SampleMecanumDrive extends MecanumDrive {
     public void setPIDFCoefficients(DcMotor.RunMode runMode, PIDFCoefficients coefficients) {
         PIDFCoefficients compensatedCoefficients = new PIDFCoefficients(
                 coefficients.p, coefficients.i, coefficients.d,
-                coefficients.f * 12 / batteryVoltageSensor.getVoltage()
+                coefficients.f * batteryMonitor.getCompensation()
         );
 
         for (DcMotorEx motor : motors) {
@@ -276,8 +340,10 @@ public class SampleMecanumDrive extends MecanumDrive {
     @Override
     public List<Double> getWheelPositions() {
         List<Double> wheelPositions = new ArrayList<>();
-        for (DcMotorEx motor : motors) {
-            wheelPositions.add(encoderTicksToInches(motor.getCurrentPosition()));
+        for (int i = 0; i < motors.size(); i++) {
+            int position = motors.get(i).getCurrentPosition();
+            FlightRecorder.set(POSITIONS[i], position);
+            wheelPositions.add(encoderTicksToInches(position));
         }
         return wheelPositions;
     }
@@ -293,8 +359,7 @@ public class SampleMecanumDrive extends MecanumDrive {
 
     @Override
     public void setMotorPowers(double v, double v1, double v2, double v3) {
-        double voltage = batteryVoltageSensor.getVoltage();
-        double scalar = 12.0 / voltage;
+        double scalar = batteryMonitor.getCompensation();
 
         v *= scalar;
         v1 *= scalar;
@@ -307,10 +372,24 @@ public class SampleMecanumDrive extends MecanumDrive {
         bl.setPower(v1 / max);
         br.setPower(v2 / max);
         fr.setPower(v3 / max);
+
+        FlightRecorder.set(POWERS[0], v / max);
+        FlightRecorder.set(POWERS[1], v1 / max);
+        FlightRecorder.set(POWERS[2], v2 / max);
+        FlightRecorder.set(POWERS[3], v3 / max);
     }
 
     @Override
     public Double getExternalHeadingVelocity() {
+        if (sensorPoller != null) {
+            SensorPoller.ImuSample sample = sensorPoller.getFreshImuSample();
+            if (sample == null) {
+                Metrics.increment(STALE_HEADING_READS);
+            } else if (!Double.isNaN(sample.headingVelocity)) {
+                return sample.headingVelocity;
+            }
+        }
+
         // To work around an SDK bug, use -zRotationRate in place of xRotationRate
         // and -xRotationRate in place of zRotationRate (yRotationRate behaves as 
         // expected). This bug does NOT affect orientation. 
@@ -332,6 +411,15 @@ public class SampleMecanumDrive extends MecanumDrive {
 
     @Override
     protected double getRawExternalHeading() {
+        if (sensorPoller != null) {
+            SensorPoller.ImuSample sample = sensorPoller.getFreshImuSample();
+            if (sample != null) {
+                return sample.heading;
+            }
+            // the poller has stopped or keeps failing, read the IMU here instead
+            Metrics.increment(STALE_HEADING_READS);
+        }
+
         return imu.getAngularOrientation().firstAngle;
     }
 }
@@ -13,7 +13,9 @@ import org.firstinspires.ftc.robotcore.internal.system.Misc;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LoggingUtil;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.RegressionUtil;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +41,8 @@ public class AutomaticFeedforwardTuner extends LinearOpMode {
 
     @Override
     public void runOpMode() throws InterruptedException {
+        Dashboard.reset();
+
         //if (RUN_USING_ENCODER) {
         //    RobotLog.setGlobalErrorMsg("Feedforward constants usually don't need to be tuned " +
         //            "when using the built-in drive motor velocity PID.");
@@ -125,10 +129,11 @@ public class AutomaticFeedforwardTuner extends LinearOpMode {
         }
         drive.setDrivePower(new Pose2d(0.0, 0.0, 0.0));
 
+        File rampFile = LoggingUtil.getLogFile(Misc.formatInvariant(
+                "DriveRampRegression-%d.csv", System.currentTimeMillis()));
         RegressionUtil.RampResult rampResult = RegressionUtil.fitRampData(
-                timeSamples, positionSamples, powerSamples, fitIntercept,
-                LoggingUtil.getLogFile(Misc.formatInvariant(
-                        "DriveRampRegression-%d.csv", System.currentTimeMillis())));
+                timeSamples, positionSamples, powerSamples, fitIntercept, rampFile);
+        LoggingUtil.release(rampFile);
 
         telemetry.clearAll();
         telemetry.addLine("Quasi-static ramp up test complete");
@@ -201,10 +206,11 @@ public class AutomaticFeedforwardTuner extends LinearOpMode {
             }
             drive.setDrivePower(new Pose2d(0.0, 0.0, 0.0));
 
+            File accelFile = LoggingUtil.getLogFile(Misc.formatInvariant(
+                    "DriveAccelRegression-%d.csv", System.currentTimeMillis()));
             RegressionUtil.AccelResult accelResult = RegressionUtil.fitAccelData(
-                    timeSamples, positionSamples, powerSamples, rampResult,
-                    LoggingUtil.getLogFile(Misc.formatInvariant(
-                            "DriveAccelRegression-%d.csv", System.currentTimeMillis())));
+                    timeSamples, positionSamples, powerSamples, rampResult, accelFile);
+            LoggingUtil.release(accelFile);
 
             telemetry.clearAll();
             telemetry.addLine("Constant power test complete");
@@ -13,6 +13,7 @@ import com.qualcomm.robotcore.util.RobotLog;
 import org.firstinspires.ftc.robotcore.internal.system.Misc;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.StandardTrackingWheelLocalizer;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
 
 /**
  * This routine determines the effective forward offset for the lateral tracking wheel.
@@ -42,6 +43,8 @@ public class TrackingWheelForwardOffsetTuner extends LinearOpMode {
 
     @Override
     public void runOpMode() throws InterruptedException {
+        Dashboard.reset();
+
         telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
 
         SampleMecanumDrive drive = new SampleMecanumDrive(hardwareMap);
@@ -80,6 +83,7 @@ public class TrackingWheelForwardOffsetTuner extends LinearOpMode {
                 lastHeading = heading;
 
                 drive.update();
+                Dashboard.periodic();
             }
 
             double forwardOffset = StandardTrackingWheelLocalizer.FORWARD_OFFSET +
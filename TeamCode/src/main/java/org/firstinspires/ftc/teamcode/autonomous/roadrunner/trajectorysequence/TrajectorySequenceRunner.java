@@ -2,10 +2,8 @@ package org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence;
 
 import androidx.annotation.Nullable;
 
-import com.acmerobotics.dashboard.FtcDashboard;
 import com.acmerobotics.dashboard.canvas.Canvas;
 import com.acmerobotics.dashboard.config.Config;
-import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.acmerobotics.roadrunner.control.PIDCoefficients;
 import com.acmerobotics.roadrunner.control.PIDFController;
 import com.acmerobotics.roadrunner.drive.DriveSignal;
@@ -21,10 +19,13 @@ import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.s
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.sequencesegment.TurnSegment;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.sequencesegment.WaitSegment;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.DashboardUtil;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
+import org.firstinspires.ftc.teamcode.utils.PoseHistory;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 @Config
@@ -37,8 +38,18 @@ public class TrajectorySequenceRunner {
     public static String COLOR_ACTIVE_TURN = "#7c4dff";
     public static String COLOR_ACTIVE_WAIT = "#dd2c00";
 
+    // read when the runner is created, anything <= 0 keeps a minute at 50 Hz
     public static int POSE_HISTORY_LIMIT = 100;
 
+    private static final int X = Dashboard.register("x");
+    private static final int Y = Dashboard.register("y");
+    private static final int HEADING = Dashboard.register("heading (deg)");
+    private static final int X_ERROR = Dashboard.register("xError");
+    private static final int Y_ERROR = Dashboard.register("yError");
+    private static final int HEADING_ERROR = Dashboard.register("headingError (deg)");
+
+    private static final int SEGMENTS = Metrics.counter("follower", "segments");
+
     private final TrajectoryFollower follower;
 
     private final PIDFController turnController;
@@ -54,8 +65,13 @@ public class TrajectorySequenceRunner {
 
     List<TrajectoryMarker> remainingMarkers = new ArrayList<>();
 
-    private final FtcDashboard dashboard;
-    private final LinkedList<Pose2d> poseHistory = new LinkedList<>();
+    private final PoseHistory poseHistory;
+
+    // last state drawn on the field overlay by the dashboard sender thread
+    private volatile TrajectorySequence drawnSequence;
+    private volatile SequenceSegment drawnSegment;
+    private volatile Pose2d drawnTargetPose;
+    private volatile Pose2d drawnPoseEstimate = new Pose2d();
 
     public TrajectorySequenceRunner(TrajectoryFollower follower, PIDCoefficients headingPIDCoefficients) {
         this.follower = follower;
@@ -63,10 +79,11 @@ public class TrajectorySequenceRunner {
         turnController = new PIDFController(headingPIDCoefficients);
         turnController.setInputBounds(0, 2 * Math.PI);
 
-        clock = NanoClock.system();
+        clock = Clock.nano();
 
-        dashboard = FtcDashboard.getInstance();
-        dashboard.setTelemetryTransmissionInterval(25);
+        poseHistory = new PoseHistory(POSE_HISTORY_LIMIT > 0 ? POSE_HISTORY_LIMIT : 3000);
+
+        Dashboard.setFieldOverlay(this::draw);
     }
 
     public void followTrajectorySequenceAsync(TrajectorySequence trajectorySequence) {
@@ -81,9 +98,6 @@ public class TrajectorySequenceRunner {
         Pose2d targetPose = null;
         DriveSignal driveSignal = null;
 
-        TelemetryPacket packet = new TelemetryPacket();
-        Canvas fieldOverlay = packet.fieldOverlay();
-
         SequenceSegment currentSegment = null;
 
         if (currentTrajectorySequence != null) {
@@ -129,6 +143,7 @@ public class TrajectorySequenceRunner {
 
                 if (!follower.isFollowing()) {
                     currentSegmentIndex++;
+                    Metrics.increment(SEGMENTS);
 
                     driveSignal = new DriveSignal();
                 } else {
@@ -159,6 +174,7 @@ public class TrajectorySequenceRunner {
 
                 if (deltaTime >= currentSegment.getDuration()) {
                     currentSegmentIndex++;
+                    Metrics.increment(SEGMENTS);
                     driveSignal = new DriveSignal();
                 }
             } else if (currentSegment instanceof WaitSegment) {
@@ -169,6 +185,7 @@ public class TrajectorySequenceRunner {
 
                 if (deltaTime >= currentSegment.getDuration()) {
                     currentSegmentIndex++;
+                    Metrics.increment(SEGMENTS);
                 }
             }
 
@@ -178,32 +195,30 @@ public class TrajectorySequenceRunner {
             }
         }
 
-        poseHistory.add(poseEstimate);
-
-        if (POSE_HISTORY_LIMIT > -1 && poseHistory.size() > POSE_HISTORY_LIMIT) {
-            poseHistory.removeFirst();
-        }
-
-        packet.put("x", poseEstimate.getX());
-        packet.put("y", poseEstimate.getY());
-        packet.put("heading (deg)", Math.toDegrees(poseEstimate.getHeading()));
+        poseHistory.add(clock.seconds(), poseEstimate);
 
-        packet.put("xError", getLastPoseError().getX());
-        packet.put("yError", getLastPoseError().getY());
-        packet.put("headingError (deg)", Math.toDegrees(getLastPoseError().getHeading()));
+        Dashboard.set(X, poseEstimate.getX());
+        Dashboard.set(Y, poseEstimate.getY());
+        Dashboard.set(HEADING, Math.toDegrees(poseEstimate.getHeading()));
 
-        draw(fieldOverlay, currentTrajectorySequence, currentSegment, targetPose, poseEstimate);
+        Dashboard.set(X_ERROR, getLastPoseError().getX());
+        Dashboard.set(Y_ERROR, getLastPoseError().getY());
+        Dashboard.set(HEADING_ERROR, Math.toDegrees(getLastPoseError().getHeading()));
 
-        dashboard.sendTelemetryPacket(packet);
+        drawnSequence = currentTrajectorySequence;
+        drawnSegment = currentSegment;
+        drawnTargetPose = targetPose;
+        drawnPoseEstimate = poseEstimate;
 
         return driveSignal;
     }
 
-    private void draw(
-            Canvas fieldOverlay,
-            TrajectorySequence sequence, SequenceSegment currentSegment,
-            Pose2d targetPose, Pose2d poseEstimate
-    ) {
+    private void draw(Canvas fieldOverlay) {
+        TrajectorySequence sequence = drawnSequence;
+        SequenceSegment currentSegment = drawnSegment;
+        Pose2d targetPose = drawnTargetPose;
+        Pose2d poseEstimate = drawnPoseEstimate;
+
         if (sequence != null) {
             for (int i = 0; i < sequence.size(); i++) {
                 SequenceSegment segment = sequence.get(i);
@@ -212,7 +227,8 @@ public class TrajectorySequenceRunner {
                     fieldOverlay.setStrokeWidth(1);
                     fieldOverlay.setStroke(COLOR_INACTIVE_TRAJECTORY);
 
-                    DashboardUtil.drawSampledPath(fieldOverlay, ((TrajectorySegment) segment).getTrajectory().getPath());
+                    double[][] path = ((TrajectorySegment) segment).getSampledPath();
+                    fieldOverlay.strokePolyline(path[0], path[1]);
                 } else if (segment instanceof TurnSegment) {
                     Pose2d pose = segment.getStartPose();
 
@@ -230,12 +246,12 @@ public class TrajectorySequenceRunner {
 
         if (currentSegment != null) {
             if (currentSegment instanceof TrajectorySegment) {
-                Trajectory currentTrajectory = ((TrajectorySegment) currentSegment).getTrajectory();
+                double[][] path = ((TrajectorySegment) currentSegment).getSampledPath();
 
                 fieldOverlay.setStrokeWidth(1);
                 fieldOverlay.setStroke(COLOR_ACTIVE_TRAJECTORY);
 
-                DashboardUtil.drawSampledPath(fieldOverlay, currentTrajectory.getPath());
+                fieldOverlay.strokePolyline(path[0], path[1]);
             } else if (currentSegment instanceof TurnSegment) {
                 Pose2d pose = currentSegment.getStartPose();
 
@@ -263,6 +279,13 @@ public class TrajectorySequenceRunner {
         DashboardUtil.drawRobot(fieldOverlay, poseEstimate);
     }
 
+    /**
+     * @return every pose passed to update(), timestamped with Clock.nano() seconds
+     */
+    public PoseHistory getPoseHistory() {
+        return poseHistory;
+    }
+
     public Pose2d getLastPoseError() {
         return lastPoseError;
     }
@@ -2,10 +2,14 @@ package org.firstinspires.ftc.teamcode.autonomous.roadrunner.trajectorysequence.
 
 import com.acmerobotics.roadrunner.trajectory.Trajectory;
 
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.DashboardUtil;
+
 import java.util.Collections;
 
 public final class TrajectorySegment extends SequenceSegment {
     private final Trajectory trajectory;
+    // sampled on the first draw, the path never changes after that
+    private volatile double[][] sampledPath;
 
     public TrajectorySegment(Trajectory trajectory) {
         // Note: Markers are already stored in the `Trajectory` itself.
@@ -17,4 +21,14 @@ public final class TrajectorySegment extends SequenceSegment {
     public Trajectory getTrajectory() {
         return this.trajectory;
     }
+
+    /**
+     * @return x points and y points of the path for drawing, don't modify them
+     */
+    public double[][] getSampledPath() {
+        if (sampledPath == null) {
+            sampledPath = DashboardUtil.samplePath(trajectory.getPath());
+        }
+        return sampledPath;
+    }
 }
@@ -5,6 +5,10 @@ import com.acmerobotics.roadrunner.geometry.Pose2d;
 import com.acmerobotics.roadrunner.geometry.Vector2d;
 import com.acmerobotics.roadrunner.path.Path;
 
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.PoseHistory;
+
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -14,6 +18,11 @@ public class DashboardUtil {
     private static final double DEFAULT_RESOLUTION = 2.0; // distance units; presumed inches
     private static final double ROBOT_RADIUS = 9; // in
 
+    // the canvas keeps the arrays until the packet is serialized, so every pooled dashboard packet gets its own
+    // pair, which comes back around when the packet does
+    private static final double[][] historyXs = new double[Dashboard.PACKET_POOL_SIZE][0];
+    private static final double[][] historyYs = new double[Dashboard.PACKET_POOL_SIZE][0];
+    private static int nextHistory = 0;
 
     public static void drawPoseHistory(Canvas canvas, List<Pose2d> poseHistory) {
         double[] xPoints = new double[poseHistory.size()];
@@ -26,8 +35,34 @@ public class DashboardUtil {
         canvas.strokePolyline(xPoints, yPoints);
     }
 
-    public static void drawSampledPath(Canvas canvas, Path path, double resolution) {
-        int samples = (int) Math.ceil(path.length() / resolution);
+    /**
+     * Draws from arrays that are reused every {@link Dashboard#PACKET_POOL_SIZE} calls, so it should be called
+     * once per dashboard packet, e.g. from a {@link Dashboard.FieldOverlay}
+     */
+    public static synchronized void drawPoseHistory(Canvas canvas, PoseHistory poseHistory) {
+        int i = nextHistory;
+        nextHistory = (nextHistory + 1) % Dashboard.PACKET_POOL_SIZE;
+        if (historyXs[i].length != poseHistory.capacity()) {
+            historyXs[i] = new double[poseHistory.capacity()];
+            historyYs[i] = new double[poseHistory.capacity()];
+        }
+        double[] xPoints = historyXs[i];
+        double[] yPoints = historyYs[i];
+        int size = poseHistory.copyPositions(xPoints, yPoints);
+        if (size == 0) {
+            return;
+        }
+        // the whole arrays are drawn, so the unused end stays on the newest point
+        Arrays.fill(xPoints, size, xPoints.length, xPoints[size - 1]);
+        Arrays.fill(yPoints, size, yPoints.length, yPoints[size - 1]);
+        canvas.strokePolyline(xPoints, yPoints);
+    }
+
+    /**
+     * @return x points and y points of the path sampled every resolution units
+     */
+    public static double[][] samplePath(Path path, double resolution) {
+        int samples = Math.max(2, (int) Math.ceil(path.length() / resolution));
         double[] xPoints = new double[samples];
         double[] yPoints = new double[samples];
         double dx = path.length() / (samples - 1);
@@ -37,7 +72,16 @@ public class DashboardUtil {
             xPoints[i] = pose.getX();
             yPoints[i] = pose.getY();
         }
-        canvas.strokePolyline(xPoints, yPoints);
+        return new double[][] {xPoints, yPoints};
+    }
+
+    public static double[][] samplePath(Path path) {
+        return samplePath(path, DEFAULT_RESOLUTION);
+    }
+
+    public static void drawSampledPath(Canvas canvas, Path path, double resolution) {
+        double[][] points = samplePath(path, resolution);
+        canvas.strokePolyline(points[0], points[1]);
     }
 
     public static void drawSampledPath(Canvas canvas, Path path) {
@@ -2,47 +2,270 @@ package org.firstinspires.ftc.teamcode.autonomous.roadrunner.util;
 
 import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Utility functions for log files.
+ * <p>
+ * Every log handed out is recorded in an index in the log folder (path, size, modification time and an optional
+ * tag), and a background thread keeps the folder under the quota using that index, so opening a log never walks
+ * the folder. Only the logs that are still open are re-checked for their size. The folder is only scanned when
+ * there is no index yet.
+ * <p>
+ * Logs created by this process are never deleted while they are open. Writers call {@link #release(File)} once
+ * they have closed a log, after which it counts towards the quota like any other.
+ * <p>
+ * {@link #keepNewest(String, int)} protects the newest logs with a tag from the quota, e.g. the last few matches.
  */
 public class LoggingUtil {
     public static final File ROAD_RUNNER_FOLDER =
             new File(AppUtil.ROOT_FOLDER + "/RoadRunner/");
 
     private static final long LOG_QUOTA = 25 * 1024 * 1024; // 25MB log quota for now
+    private static final File INDEX_FILE = new File(ROAD_RUNNER_FOLDER, ".index");
+    private static final File INDEX_TEMP_FILE = new File(ROAD_RUNNER_FOLDER, ".index.tmp");
+    private static final long REFRESH_INTERVAL = 5000; // ms, how often the sizes of open logs are re-checked
+
+    private static class LogEntry {
+        final String path; // relative to ROAD_RUNNER_FOLDER
+        final String tag;
+        long size;
+        long lastModified;
+        boolean current; // opened by this process and not released yet, so it may still be growing
+
+        LogEntry(String path, String tag, long size, long lastModified, boolean current) {
+            this.path = path;
+            this.tag = tag;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.current = current;
+        }
+    }
+
+    // handed from callers to the pruner, guarded by lock
+    private static final Object lock = new Object();
+    private static final List<LogEntry> pending = new ArrayList<>();
+    private static final List<String> released = new ArrayList<>();
+    private static final Map<String, Integer> retention = new HashMap<>();
+    private static boolean pruneRequested = false;
+    private static Thread pruner = null;
+
+    // only touched by the pruner, oldest first
+    private static final List<LogEntry> index = new ArrayList<>();
+    private static boolean indexLoaded = false;
 
     private static void buildLogList(List<File> logFiles, File dir) {
-        for (File file : dir.listFiles()) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
             if (file.isDirectory()) {
                 buildLogList(logFiles, file);
-            } else {
+            } else if (!file.equals(INDEX_FILE) && !file.equals(INDEX_TEMP_FILE)) {
                 logFiles.add(file);
             }
         }
     }
 
-    private static void pruneLogsIfNecessary() {
+    private static void loadIndex() {
+        index.clear();
+        if (INDEX_FILE.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(INDEX_FILE))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // modification time, size, tag, path
+                    String[] parts = line.split("\t", 4);
+                    index.add(new LogEntry(parts[3], parts[2], Long.parseLong(parts[1]),
+                            Long.parseLong(parts[0]), false));
+                }
+                return;
+            } catch (IOException | RuntimeException e) {
+                // unreadable, fall back to scanning the folder
+                index.clear();
+            }
+        }
+
         List<File> logFiles = new ArrayList<>();
         buildLogList(logFiles, ROAD_RUNNER_FOLDER);
         Collections.sort(logFiles, (lhs, rhs) ->
                 Long.compare(lhs.lastModified(), rhs.lastModified()));
+        for (File file : logFiles) {
+            index.add(new LogEntry(relativePath(file), "", file.length(), file.lastModified(), false));
+        }
+    }
+
+    private static void saveIndex() {
+        try (PrintWriter pw = new PrintWriter(INDEX_TEMP_FILE)) {
+            for (LogEntry entry : index) {
+                pw.print(entry.lastModified);
+                pw.print('\t');
+                pw.print(entry.size);
+                pw.print('\t');
+                pw.print(entry.tag);
+                pw.print('\t');
+                pw.println(entry.path);
+            }
+        } catch (IOException e) {
+            return;
+        }
+        //noinspection ResultOfMethodCallIgnored
+        INDEX_TEMP_FILE.renameTo(INDEX_FILE);
+    }
+
+    private static String relativePath(File file) {
+        String root = ROAD_RUNNER_FOLDER.getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        return path.startsWith(root) ? path.substring(root.length()) : path;
+    }
+
+    /**
+     * Adds new logs to the index, refreshes the open ones and then marks the released ones as closed
+     *
+     * @return whether the index changed
+     */
+    private static boolean updateIndex(List<LogEntry> added, List<String> closed) {
+        boolean changed = !added.isEmpty();
+        for (LogEntry entry : added) {
+            // a log opened again under the same name replaces the old one
+            for (int i = 0; i < index.size(); i++) {
+                if (index.get(i).path.equals(entry.path)) {
+                    index.remove(i);
+                    break;
+                }
+            }
+            index.add(entry);
+        }
+
+        for (LogEntry entry : index) {
+            if (!entry.current) {
+                continue;
+            }
+            File file = new File(ROAD_RUNNER_FOLDER, entry.path);
+            // it may not have been created yet
+            if (file.exists() && (file.length() != entry.size || file.lastModified() != entry.lastModified)) {
+                entry.size = file.length();
+                entry.lastModified = file.lastModified();
+                changed = true;
+            }
+        }
+
+        for (String path : closed) {
+            for (LogEntry entry : index) {
+                if (entry.path.equals(path)) {
+                    entry.current = false;
+                }
+            }
+        }
+        return changed;
+    }
 
+    /**
+     * Deletes the oldest logs until the folder is under the quota, skipping the open ones and the ones protected
+     * by retention
+     *
+     * @return whether the index changed
+     */
+    private static boolean pruneLogsIfNecessary(Map<String, Integer> kept) {
         long dirSize = 0;
-        for (File file: logFiles) {
-            dirSize += file.length();
+        for (LogEntry entry : index) {
+            dirSize += entry.size;
+        }
+        if (dirSize <= LOG_QUOTA) {
+            return false;
+        }
+
+        Set<LogEntry> protectedLogs = new HashSet<>();
+        for (Map.Entry<String, Integer> retained : kept.entrySet()) {
+            int count = 0;
+            for (int i = index.size() - 1; i >= 0 && count < retained.getValue(); i--) {
+                if (index.get(i).tag.equals(retained.getKey())) {
+                    protectedLogs.add(index.get(i));
+                    count++;
+                }
+            }
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < index.size() && dirSize > LOG_QUOTA; ) {
+            LogEntry entry = index.get(i);
+            File file = new File(ROAD_RUNNER_FOLDER, entry.path);
+            if (entry.current || protectedLogs.contains(entry) || (!file.delete() && file.exists())) {
+                i++;
+                continue;
+            }
+            index.remove(i);
+            dirSize -= entry.size;
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static void runPruner() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<LogEntry> added;
+            List<String> closed;
+            Map<String, Integer> kept;
+            synchronized (lock) {
+                try {
+                    if (!pruneRequested) {
+                        lock.wait(REFRESH_INTERVAL);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                pruneRequested = false;
+                added = new ArrayList<>(pending);
+                pending.clear();
+                closed = new ArrayList<>(released);
+                released.clear();
+                kept = new HashMap<>(retention);
+            }
+
+            boolean changed = false;
+            if (!indexLoaded) {
+                loadIndex();
+                indexLoaded = true;
+                changed = true;
+            }
+            changed |= updateIndex(added, closed);
+            changed |= pruneLogsIfNecessary(kept);
+            if (changed) {
+                saveIndex();
+            }
         }
+    }
+
+    private static void requestPrune() {
+        // called with lock held
+        pruneRequested = true;
+        lock.notifyAll();
+        if (pruner == null) {
+            pruner = new Thread(LoggingUtil::runPruner, "LogPruner");
+            pruner.setDaemon(true);
+            pruner.setPriority(Thread.MIN_PRIORITY);
+            pruner.start();
+        }
+    }
 
-        while (dirSize > LOG_QUOTA) {
-            if (logFiles.size() == 0) break;
-            File fileToRemove = logFiles.remove(0);
-            dirSize -= fileToRemove.length();
-            //noinspection ResultOfMethodCallIgnored
-            fileToRemove.delete();
+    /**
+     * Never deletes the newest count logs with this tag to stay under the quota. They still count towards it.
+     */
+    public static void keepNewest(String tag, int count) {
+        synchronized (lock) {
+            retention.put(tag, count);
+            requestPrune();
         }
     }
 
@@ -50,11 +273,32 @@ public class LoggingUtil {
      * Obtain a log file with the provided name
      */
     public static File getLogFile(String name) {
+        return getLogFile(name, null);
+    }
+
+    /**
+     * Obtain a log file with the provided name, tagged for {@link #keepNewest(String, int)}
+     */
+    public static File getLogFile(String name, String tag) {
         //noinspection ResultOfMethodCallIgnored
         ROAD_RUNNER_FOLDER.mkdirs();
 
-        pruneLogsIfNecessary();
+        synchronized (lock) {
+            pending.add(new LogEntry(name, tag == null ? "" : tag, 0, System.currentTimeMillis(), true));
+            requestPrune();
+        }
 
         return new File(ROAD_RUNNER_FOLDER, name);
     }
+
+    /**
+     * Marks a log from {@link #getLogFile(String)} as closed, so the quota can delete it once it is one of the
+     * oldest. Logs that are never released are kept until the app restarts.
+     */
+    public static void release(File file) {
+        synchronized (lock) {
+            released.add(relativePath(file));
+            requestPrune();
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.acmerobotics.dashboard.config.Config;
+
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+
+/**
+ * Shared settings and write counters for {@link CachingMotor} and {@link CachingServo}.
+ * Call {@link #periodic()} once at the end of every loop to roll the counters over.
+ */
+@Config
+public class ActuatorCache {
+    // Config parameters
+    public static double powerTolerance = 0.005;
+    public static double positionTolerance = 0.001;
+    public static double refreshInterval = 0.25; // seconds
+
+    private static int issuedWrites = 0;
+    private static int skippedWrites = 0;
+    private static int lastIssuedWrites = 0;
+    private static int lastSkippedWrites = 0;
+    private static final int ISSUED_WRITES = Dashboard.register("issued writes");
+    private static final int SKIPPED_WRITES = Dashboard.register("skipped writes");
+
+    static void recordIssued() {
+        issuedWrites++;
+    }
+
+    static void recordSkipped() {
+        skippedWrites++;
+    }
+
+    /**
+     * @return number of writes that were sent to the hub during the last completed loop
+     */
+    public static int getIssuedWrites() {
+        return lastIssuedWrites;
+    }
+
+    /**
+     * @return number of writes that were dropped by the cache during the last completed loop
+     */
+    public static int getSkippedWrites() {
+        return lastSkippedWrites;
+    }
+
+    public static void periodic() {
+        lastIssuedWrites = issuedWrites;
+        lastSkippedWrites = skippedWrites;
+        issuedWrites = 0;
+        skippedWrites = 0;
+
+        Dashboard.set(ISSUED_WRITES, lastIssuedWrites);
+        Dashboard.set(SKIPPED_WRITES, lastSkippedWrites);
+    }
+}
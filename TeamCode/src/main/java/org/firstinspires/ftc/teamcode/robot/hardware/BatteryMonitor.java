@@ -0,0 +1,75 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+
+/**
+ * Low-pass filtered battery voltage. Battery voltage isn't part of the bulk data, so the sensor is only read at
+ * {@link #sampleRate} no matter how often {@link #getVoltage()} is called, and the readings are smoothed so that
+ * the dips from motors starting don't get fed straight back into the 12V scaling.
+ * <p>
+ * One monitor should be shared by everything on the robot that compensates for voltage.
+ */
+@Config
+public class BatteryMonitor {
+    // Config parameters
+    public static double sampleRate = 5; // Hz
+    public static double filterTimeConstant = 1; // seconds, 0 disables the filter
+    public static double nominalVoltage = 12;
+
+    private static final int BATTERY_VOLTAGE = FlightRecorder.field("battery voltage");
+
+    private final VoltageSensor voltageSensor;
+    private final NanoClock clock = Clock.nano();
+
+    private double voltage = Double.NaN;
+    // every read counts towards the rate limit, only accepted ones move the filter
+    private double lastRead = Double.NEGATIVE_INFINITY;
+    private double lastAccepted = Double.NEGATIVE_INFINITY;
+
+    public BatteryMonitor(HardwareMap hardwareMap) {
+        voltageSensor = hardwareMap.voltageSensor.iterator().next();
+    }
+
+    /**
+     * @return filtered battery voltage, reading the sensor first if a sample is due
+     */
+    public double getVoltage() {
+        double now = clock.seconds();
+        if (now - lastRead < 1 / sampleRate) {
+            return Double.isNaN(voltage) ? nominalVoltage : voltage;
+        }
+
+        double measured = voltageSensor.getVoltage();
+        HardwareHub.recordNonBulkCommand();
+        FlightRecorder.set(BATTERY_VOLTAGE, measured);
+        lastRead = now;
+
+        // the hub reports 0 for a moment after it resets, don't let that drag the filter down
+        if (measured <= 0) {
+            return Double.isNaN(voltage) ? nominalVoltage : voltage;
+        }
+
+        double dt = now - lastAccepted;
+        lastAccepted = now;
+        if (Double.isNaN(voltage) || filterTimeConstant <= 0) {
+            voltage = measured;
+        } else {
+            voltage += dt / (filterTimeConstant + dt) * (measured - voltage);
+        }
+        return voltage;
+    }
+
+    /**
+     * @return factor to multiply a power tuned at {@link #nominalVoltage} by to get the same output at the
+     * current voltage
+     */
+    public double getCompensation() {
+        return nominalVoltage / getVoltage();
+    }
+}
@@ -0,0 +1,284 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+
+/**
+ * Wraps a motor so that {@link #setPower(double)} only reaches the hub when the power actually changes
+ * by more than {@link ActuatorCache#powerTolerance}, or when {@link ActuatorCache#refreshInterval} has
+ * passed since the last write. Everything else is passed straight through to the wrapped motor.
+ */
+public class CachingMotor implements DcMotorEx {
+    private final DcMotorEx motor;
+
+    private double cachedPower = Double.NaN;
+    private final ElapsedTime refreshTimer = new Clock.Timer();
+
+    public CachingMotor(DcMotorEx motor) {
+        this.motor = motor;
+    }
+
+    public DcMotorEx getMotor() {
+        return motor;
+    }
+
+    /**
+     * Forces the next {@link #setPower(double)} call to be sent to the hub
+     */
+    public void invalidate() {
+        cachedPower = Double.NaN;
+    }
+
+    @Override
+    public void setPower(double power) {
+        // a stop command is always sent so that the motor can't be left running by the tolerance
+        boolean stopping = power == 0 && cachedPower != 0;
+        if (!stopping && Math.abs(power - cachedPower) < ActuatorCache.powerTolerance
+                && refreshTimer.seconds() < ActuatorCache.refreshInterval) {
+            ActuatorCache.recordSkipped();
+            return;
+        }
+
+        motor.setPower(power);
+        cachedPower = power;
+        refreshTimer.reset();
+        ActuatorCache.recordIssued();
+    }
+
+    @Override
+    public double getPower() {
+        if (Double.isNaN(cachedPower)) {
+            HardwareHub.recordNonBulkCommand();
+            return motor.getPower();
+        }
+        return cachedPower;
+    }
+
+    @Override
+    public void setMode(RunMode mode) {
+        // STOP_AND_RESET_ENCODER zeroes the power on the hub side
+        invalidate();
+        motor.setMode(mode);
+    }
+
+    @Override
+    public RunMode getMode() {
+        return motor.getMode();
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        invalidate();
+        motor.setDirection(direction);
+    }
+
+    @Override
+    public Direction getDirection() {
+        return motor.getDirection();
+    }
+
+    @Override
+    public void setMotorEnable() {
+        invalidate();
+        motor.setMotorEnable();
+    }
+
+    @Override
+    public void setMotorDisable() {
+        invalidate();
+        motor.setMotorDisable();
+    }
+
+    @Override
+    public boolean isMotorEnabled() {
+        return motor.isMotorEnabled();
+    }
+
+    @Override
+    public void setVelocity(double angularRate) {
+        invalidate();
+        motor.setVelocity(angularRate);
+    }
+
+    @Override
+    public void setVelocity(double angularRate, AngleUnit unit) {
+        invalidate();
+        motor.setVelocity(angularRate, unit);
+    }
+
+    @Override
+    public double getVelocity() {
+        return motor.getVelocity();
+    }
+
+    @Override
+    public double getVelocity(AngleUnit unit) {
+        return motor.getVelocity(unit);
+    }
+
+    @Deprecated
+    @Override
+    public void setPIDCoefficients(RunMode mode, PIDCoefficients pidCoefficients) {
+        motor.setPIDCoefficients(mode, pidCoefficients);
+    }
+
+    @Override
+    public void setPIDFCoefficients(RunMode mode, PIDFCoefficients pidfCoefficients) {
+        motor.setPIDFCoefficients(mode, pidfCoefficients);
+    }
+
+    @Override
+    public void setVelocityPIDFCoefficients(double p, double i, double d, double f) {
+        motor.setVelocityPIDFCoefficients(p, i, d, f);
+    }
+
+    @Override
+    public void setPositionPIDFCoefficients(double p) {
+        motor.setPositionPIDFCoefficients(p);
+    }
+
+    @Deprecated
+    @Override
+    public PIDCoefficients getPIDCoefficients(RunMode mode) {
+        return motor.getPIDCoefficients(mode);
+    }
+
+    @Override
+    public PIDFCoefficients getPIDFCoefficients(RunMode mode) {
+        return motor.getPIDFCoefficients(mode);
+    }
+
+    @Override
+    public void setTargetPositionTolerance(int tolerance) {
+        motor.setTargetPositionTolerance(tolerance);
+    }
+
+    @Override
+    public int getTargetPositionTolerance() {
+        return motor.getTargetPositionTolerance();
+    }
+
+    @Override
+    public double getCurrent(CurrentUnit unit) {
+        HardwareHub.recordNonBulkCommand();
+        return motor.getCurrent(unit);
+    }
+
+    @Override
+    public double getCurrentAlert(CurrentUnit unit) {
+        HardwareHub.recordNonBulkCommand();
+        return motor.getCurrentAlert(unit);
+    }
+
+    @Override
+    public void setCurrentAlert(double current, CurrentUnit unit) {
+        motor.setCurrentAlert(current, unit);
+    }
+
+    @Override
+    public boolean isOverCurrent() {
+        HardwareHub.recordNonBulkCommand();
+        return motor.isOverCurrent();
+    }
+
+    @Override
+    public MotorConfigurationType getMotorType() {
+        return motor.getMotorType();
+    }
+
+    @Override
+    public void setMotorType(MotorConfigurationType motorType) {
+        motor.setMotorType(motorType);
+    }
+
+    @Override
+    public DcMotorController getController() {
+        return motor.getController();
+    }
+
+    @Override
+    public int getPortNumber() {
+        return motor.getPortNumber();
+    }
+
+    @Override
+    public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) {
+        motor.setZeroPowerBehavior(zeroPowerBehavior);
+    }
+
+    @Override
+    public ZeroPowerBehavior getZeroPowerBehavior() {
+        return motor.getZeroPowerBehavior();
+    }
+
+    @Deprecated
+    @Override
+    public void setPowerFloat() {
+        invalidate();
+        motor.setPowerFloat();
+    }
+
+    @Override
+    public boolean getPowerFloat() {
+        return motor.getPowerFloat();
+    }
+
+    @Override
+    public void setTargetPosition(int position) {
+        motor.setTargetPosition(position);
+    }
+
+    @Override
+    public int getTargetPosition() {
+        return motor.getTargetPosition();
+    }
+
+    @Override
+    public boolean isBusy() {
+        return motor.isBusy();
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        return motor.getCurrentPosition();
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return motor.getManufacturer();
+    }
+
+    @Override
+    public String getDeviceName() {
+        return motor.getDeviceName();
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return motor.getConnectionInfo();
+    }
+
+    @Override
+    public int getVersion() {
+        return motor.getVersion();
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        invalidate();
+        motor.resetDeviceConfigurationForOpMode();
+    }
+
+    @Override
+    public void close() {
+        motor.close();
+    }
+}
@@ -0,0 +1,114 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.qualcomm.robotcore.hardware.Servo;
+import com.qualcomm.robotcore.hardware.ServoController;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.utils.Clock;
+
+/**
+ * Wraps a servo so that {@link #setPosition(double)} only reaches the hub when the position actually
+ * changes by more than {@link ActuatorCache#positionTolerance}, or when
+ * {@link ActuatorCache#refreshInterval} has passed since the last write.
+ */
+public class CachingServo implements Servo {
+    private final Servo servo;
+
+    private double cachedPosition = Double.NaN;
+    private final ElapsedTime refreshTimer = new Clock.Timer();
+
+    public CachingServo(Servo servo) {
+        this.servo = servo;
+    }
+
+    public Servo getServo() {
+        return servo;
+    }
+
+    /**
+     * Forces the next {@link #setPosition(double)} call to be sent to the hub
+     */
+    public void invalidate() {
+        cachedPosition = Double.NaN;
+    }
+
+    @Override
+    public void setPosition(double position) {
+        if (Math.abs(position - cachedPosition) < ActuatorCache.positionTolerance
+                && refreshTimer.seconds() < ActuatorCache.refreshInterval) {
+            ActuatorCache.recordSkipped();
+            return;
+        }
+
+        servo.setPosition(position);
+        cachedPosition = position;
+        refreshTimer.reset();
+        ActuatorCache.recordIssued();
+    }
+
+    @Override
+    public double getPosition() {
+        if (Double.isNaN(cachedPosition)) {
+            return servo.getPosition();
+        }
+        return cachedPosition;
+    }
+
+    @Override
+    public ServoController getController() {
+        return servo.getController();
+    }
+
+    @Override
+    public int getPortNumber() {
+        return servo.getPortNumber();
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        invalidate();
+        servo.setDirection(direction);
+    }
+
+    @Override
+    public Direction getDirection() {
+        return servo.getDirection();
+    }
+
+    @Override
+    public void scaleRange(double min, double max) {
+        invalidate();
+        servo.scaleRange(min, max);
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return servo.getManufacturer();
+    }
+
+    @Override
+    public String getDeviceName() {
+        return servo.getDeviceName();
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return servo.getConnectionInfo();
+    }
+
+    @Override
+    public int getVersion() {
+        return servo.getVersion();
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        invalidate();
+        servo.resetDeviceConfigurationForOpMode();
+    }
+
+    @Override
+    public void close() {
+        servo.close();
+    }
+}
@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+
+/**
+ * Samples a motor's current at a reduced rate and keeps a rolling window of the readings. Current isn't part
+ * of the bulk data, so every sample is its own hub command; {@link #update()} can be called every loop and
+ * only actually reads the motor when a sample is due.
+ * <p>
+ * A jam is reported when the mean over a full window is above the threshold, so a single spike doesn't trip it.
+ */
+@Config
+public class CurrentMonitor {
+    // Config parameters
+    public static double sampleRate = 10; // Hz
+    public static int windowSize = 5; // samples, only read when a monitor is created
+
+    private final DcMotorEx motor;
+
+    private final double[] window;
+    private int index = 0;
+    private int count = 0;
+    private double sum = 0;
+    private double latest = 0;
+
+    private boolean jammed = false;
+    private int jamCount = 0;
+
+    private final ElapsedTime sampleTimer = new Clock.Timer();
+
+    public CurrentMonitor(DcMotorEx motor) {
+        this.motor = motor;
+        window = new double[Math.max(windowSize, 1)];
+    }
+
+    /**
+     * @param threshold mean current in amps above which the motor is considered jammed
+     */
+    public void update(double threshold) {
+        if (sampleTimer.seconds() < 1 / sampleRate) {
+            return;
+        }
+        sampleTimer.reset();
+
+        latest = motor.getCurrent(CurrentUnit.AMPS);
+
+        sum -= window[index];
+        window[index] = latest;
+        sum += latest;
+        index = (index + 1) % window.length;
+        if (count < window.length) {
+            count++;
+        }
+
+        boolean wasJammed = jammed;
+        jammed = count == window.length && getMean() > threshold;
+        if (jammed && !wasJammed) {
+            jamCount++;
+        }
+    }
+
+    /**
+     * @return most recent sample in amps
+     */
+    public double getLatest() {
+        return latest;
+    }
+
+    /**
+     * @return mean of the samples currently in the window in amps
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return highest sample currently in the window in amps
+     */
+    public double getPeak() {
+        double peak = 0;
+        for (int i = 0; i < count; i++) {
+            peak = Math.max(peak, window[i]);
+        }
+        return peak;
+    }
+
+    public boolean isJammed() {
+        return jammed;
+    }
+
+    /**
+     * @return number of times the motor has gone from not jammed to jammed
+     */
+    public int getJamCount() {
+        return jamCount;
+    }
+
+    /**
+     * Empties the window, e.g. after the mechanism was deliberately backed off
+     */
+    public void reset() {
+        for (int i = 0; i < window.length; i++) {
+            window[i] = 0;
+        }
+        index = 0;
+        count = 0;
+        sum = 0;
+        jammed = false;
+    }
+}
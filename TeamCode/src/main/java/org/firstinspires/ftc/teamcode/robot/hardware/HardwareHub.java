@@ -0,0 +1,55 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+
+import java.util.List;
+
+/**
+ * Owns the bulk cache of every hub on the robot. All hubs are put into MANUAL bulk caching mode, so every
+ * encoder position, velocity and busy check made during a loop is served from a single bulk read.
+ * {@link #update()} must be called exactly once at the top of every loop to clear the cache. Blocking helpers
+ * such as SampleMecanumDrive.waitForIdle() never clear it, so only the async followers should be used with a hub.
+ * <p>
+ * Reads that can't be served from bulk data (motor current, uncached power, synchronous I2C) are counted
+ * so that regressions show up on the dashboard.
+ */
+public class HardwareHub {
+    private final List<LynxModule> modules;
+
+    private static int nonBulkCommands = 0;
+    private static int lastNonBulkCommands = 0;
+    private static final int NON_BULK_COMMANDS = Dashboard.register("non-bulk commands");
+
+    public HardwareHub(HardwareMap hardwareMap) {
+        modules = hardwareMap.getAll(LynxModule.class);
+
+        for (LynxModule module : modules) {
+            module.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+        }
+    }
+
+    public void update() {
+        for (LynxModule module : modules) {
+            module.clearBulkCache();
+        }
+
+        lastNonBulkCommands = nonBulkCommands;
+        nonBulkCommands = 0;
+
+        Dashboard.set(NON_BULK_COMMANDS, lastNonBulkCommands);
+    }
+
+    static void recordNonBulkCommand() {
+        nonBulkCommands++;
+    }
+
+    /**
+     * @return number of commands during the last completed loop that had to bypass the bulk cache
+     */
+    public static int getNonBulkCommands() {
+        return lastNonBulkCommands;
+    }
+}
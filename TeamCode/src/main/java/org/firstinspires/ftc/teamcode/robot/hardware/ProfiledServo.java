@@ -5,8 +5,10 @@ import com.qualcomm.robotcore.hardware.Servo;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.teamcode.utils.AsymmetricMotionProfile;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 import org.firstinspires.ftc.teamcode.utils.Dashboard;
 import org.firstinspires.ftc.teamcode.utils.MotionConstraint;
+import org.firstinspires.ftc.teamcode.utils.ProfileState;
 
 public class ProfiledServo {
     public Servo servo;
@@ -14,15 +16,18 @@ public class ProfiledServo {
     protected double previousEndPosition;
     public double currentPosition;
     protected String name;
+    private final int positionChannel;
     public double initialPosition;
 
     public AsymmetricMotionProfile profile;
+    public final ProfileState state = new ProfileState();
     public MotionConstraint constraints;
-    public ElapsedTime timer = new ElapsedTime();
+    public ElapsedTime timer = new Clock.Timer();
 
     public ProfiledServo(HardwareMap hwMap, String name, MotionConstraint constraints, double initialPosition) {
-        servo = hwMap.get(Servo.class, name);
+        servo = new CachingServo(hwMap.get(Servo.class, name));
         this.name = name + " ";
+        this.positionChannel = Dashboard.register(this.name + "position");
         this.endPosition = initialPosition;
         this.currentPosition = initialPosition;
         this.previousEndPosition = initialPosition + 100;
@@ -32,7 +37,14 @@ public class ProfiledServo {
     }
 
     protected void regenerate_profile() {
-        profile = new AsymmetricMotionProfile(this.currentPosition, this.endPosition, constraints);
+        // carry on from where the current profile is now, at the speed it is going
+        double velocity = 0;
+        if (profile != null) {
+            profile.sample(timer.seconds(), state);
+            currentPosition = profile.initialPosition + profile.getDirection() * state.x;
+            velocity = profile.getDirection() * state.v;
+        }
+        profile = AsymmetricMotionProfile.generate(this.currentPosition, this.endPosition, velocity, constraints);
         initialPosition = this.currentPosition;
         timer.reset();
     }
@@ -42,16 +54,31 @@ public class ProfiledServo {
             regenerate_profile();
         }
         previousEndPosition = endPosition;
-        int multiplier = initialPosition > endPosition ? -1 : 1;
-        currentPosition = multiplier * profile.getState(timer.seconds()).getX() + initialPosition;
+        currentPosition = profile.getDirection() * profile.sample(timer.seconds(), state).x + initialPosition;
         servo.setPosition(currentPosition);
-        Dashboard.packet.put(name + "position", currentPosition);
+        Dashboard.set(positionChannel, currentPosition);
     }
 
     public boolean isBusy() {
         return timer.seconds() < profile.getProfileDuration();
     }
 
+    /**
+     * @return seconds it would take to get to a position if it was set now, 0 if it is already there
+     */
+    public double timeTo(double position) {
+        if (profile == null) {
+            return AsymmetricMotionProfile.generate(currentPosition, position, 0, constraints).getProfileDuration();
+        }
+        double seconds = timer.seconds();
+        if (position == profile.finalPosition) {
+            return Math.max(profile.getProfileDuration() - seconds, 0);
+        }
+        ProfileState now = profile.sample(seconds, new ProfileState());
+        return AsymmetricMotionProfile.generate(profile.initialPosition + profile.getDirection() * now.x, position,
+                profile.getDirection() * now.v, constraints).getProfileDuration();
+    }
+
     public void setPosition(double endPosition) {
         this.endPosition = endPosition;
     }
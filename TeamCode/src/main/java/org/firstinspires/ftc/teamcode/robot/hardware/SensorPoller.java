@@ -0,0 +1,203 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
+
+/**
+ * Polls the IMU and the intake color sensor on a background thread so the control loop never waits on I2C.
+ * The poller thread is the only writer; every result is published as an immutable sample through a volatile
+ * field, so readers always see a complete sample without locking.
+ * <p>
+ * A read that throws is counted in the "sensors" metrics and retried at the next poll, so one bad I2C transaction
+ * only makes the sample a little older instead of ending the thread.
+ * <p>
+ * {@link #stop()} must be called when the OpMode ends.
+ */
+@Config
+public class SensorPoller implements Runnable {
+    // Config parameters, in Hz
+    public static double imuRate = 100;
+    public static double colorSensorRate = 50;
+    // a sample older than this (in seconds) is considered stale
+    public static double staleTimeout = 0.1;
+
+    public static class ImuSample {
+        public final double heading; // rad
+        public final double headingVelocity; // rad/s, NaN if not polled
+        public final double timestamp; // s
+
+        ImuSample(double heading, double headingVelocity, double timestamp) {
+            this.heading = heading;
+            this.headingVelocity = headingVelocity;
+            this.timestamp = timestamp;
+        }
+    }
+
+    public static class ColorSample {
+        public final double distance; // cm
+        public final double timestamp; // s
+
+        ColorSample(double distance, double timestamp) {
+            this.distance = distance;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static final int IMU_FAILURES = Metrics.counter("sensors", "imu read failures");
+    private static final int COLOR_FAILURES = Metrics.counter("sensors", "color read failures");
+
+    private final BNO055IMU imu;
+    private final DistanceSensor color;
+    private final boolean pollHeadingVelocity;
+
+    private final NanoClock clock = NanoClock.system();
+    private final Thread thread;
+    private volatile boolean running = false;
+
+    private volatile ImuSample imuSample = null;
+    private volatile ColorSample colorSample = null;
+
+    private volatile double imuSampleRate = 0;
+    private volatile double colorSampleRate = 0;
+
+    public SensorPoller(HardwareMap hardwareMap, boolean pollHeadingVelocity) {
+        imu = hardwareMap.tryGet(BNO055IMU.class, "imu");
+        color = hardwareMap.tryGet(DistanceSensor.class, "color");
+        this.pollHeadingVelocity = pollHeadingVelocity;
+
+        thread = new Thread(this, "SensorPoller");
+        thread.setDaemon(true);
+    }
+
+    public SensorPoller(HardwareMap hardwareMap) {
+        this(hardwareMap, false);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        // sensors that aren't in the config are never due
+        double nextImuRead = imu != null ? 0 : Double.POSITIVE_INFINITY;
+        double nextColorRead = color != null ? 0 : Double.POSITIVE_INFINITY;
+
+        int imuCount = 0;
+        int colorCount = 0;
+        double windowStart = clock.seconds();
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            double now = clock.seconds();
+
+            if (now >= nextImuRead) {
+                nextImuRead = now + 1 / imuRate;
+                try {
+                    double heading = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+                    double headingVelocity = Double.NaN;
+                    if (pollHeadingVelocity) {
+                        // To work around an SDK bug, use -xRotationRate in place of zRotationRate, see SampleMecanumDrive
+                        headingVelocity = -imu.getAngularVelocity().toAngleUnit(AngleUnit.RADIANS).xRotationRate;
+                    }
+                    imuSample = new ImuSample(heading, headingVelocity, clock.seconds());
+                    imuCount++;
+                } catch (RuntimeException e) {
+                    Metrics.increment(IMU_FAILURES);
+                }
+            }
+
+            if (now >= nextColorRead) {
+                nextColorRead = now + 1 / colorSensorRate;
+                try {
+                    colorSample = new ColorSample(color.getDistance(DistanceUnit.CM), clock.seconds());
+                    colorCount++;
+                } catch (RuntimeException e) {
+                    Metrics.increment(COLOR_FAILURES);
+                }
+            }
+
+            double windowLength = now - windowStart;
+            if (windowLength >= 1) {
+                imuSampleRate = imuCount / windowLength;
+                colorSampleRate = colorCount / windowLength;
+                imuCount = 0;
+                colorCount = 0;
+                windowStart = now;
+            }
+
+            double sleepTime = Math.min(nextImuRead, nextColorRead) - clock.seconds();
+            if (sleepTime > 0) {
+                try {
+                    Thread.sleep((long) Math.ceil(sleepTime * 1000));
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the latest IMU sample, or null if the IMU hasn't been read yet
+     */
+    public ImuSample getImuSample() {
+        return imuSample;
+    }
+
+    /**
+     * @return the latest IMU sample, or null if it is stale or the IMU hasn't been read yet
+     */
+    public ImuSample getFreshImuSample() {
+        ImuSample sample = imuSample;
+        return sample == null || clock.seconds() - sample.timestamp > staleTimeout ? null : sample;
+    }
+
+    /**
+     * @return the latest color sensor sample, or null if the sensor hasn't been read yet
+     */
+    public ColorSample getColorSample() {
+        return colorSample;
+    }
+
+    public boolean isImuStale() {
+        return getFreshImuSample() == null;
+    }
+
+    public boolean isColorStale() {
+        ColorSample sample = colorSample;
+        return sample == null || clock.seconds() - sample.timestamp > staleTimeout;
+    }
+
+    /**
+     * @return IMU samples per second achieved over the last second
+     */
+    public double getImuSampleRate() {
+        return imuSampleRate;
+    }
+
+    /**
+     * @return color sensor samples per second achieved over the last second
+     */
+    public double getColorSampleRate() {
+        return colorSampleRate;
+    }
+}
@@ -0,0 +1,135 @@
+package org.firstinspires.ftc.teamcode.robot.hardware;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+
+/**
+ * Reads every I2C sensor on the robot at most once per loop. Call {@link #update()} once at the top of
+ * the loop; subsystems then read the cached, timestamped values instead of blocking on the bus.
+ * Each sensor is only re-read when its configured rate allows it, so slow sensors can be polled less often
+ * than the loop runs.
+ * <p>
+ * When built on a {@link SensorPoller}, {@link #update()} just copies the poller's latest samples and never
+ * touches the bus.
+ */
+@Config
+public class SensorSnapshot {
+    // Config parameters, in Hz. Anything <= 0 reads the sensor every loop.
+    public static double colorSensorRate = 50;
+    public static double imuRate = 100;
+
+    private static final int IMU_HEADING = FlightRecorder.field("imu heading");
+    private static final int COLOR_DISTANCE = FlightRecorder.field("color distance");
+
+    private final DistanceSensor color;
+    private final BNO055IMU imu;
+    private final SensorPoller poller;
+
+    private final NanoClock clock = Clock.nano();
+
+    private double colorDistance = Double.NaN;
+    private double colorTimestamp = Double.NEGATIVE_INFINITY;
+
+    private double heading = 0;
+    private double imuTimestamp = Double.NEGATIVE_INFINITY;
+
+    public SensorSnapshot(HardwareMap hardwareMap) {
+        // not every config has every sensor, missing ones are just never read
+        color = hardwareMap.tryGet(DistanceSensor.class, "color");
+        imu = hardwareMap.tryGet(BNO055IMU.class, "imu");
+        poller = null;
+    }
+
+    public SensorSnapshot(SensorPoller poller) {
+        color = null;
+        imu = null;
+        this.poller = poller;
+    }
+
+    public void update() {
+        read();
+        FlightRecorder.set(IMU_HEADING, heading);
+        FlightRecorder.set(COLOR_DISTANCE, colorDistance);
+    }
+
+    private void read() {
+        if (poller != null) {
+            SensorPoller.ColorSample colorSample = poller.getColorSample();
+            if (colorSample != null) {
+                colorDistance = colorSample.distance;
+                colorTimestamp = colorSample.timestamp;
+            }
+
+            SensorPoller.ImuSample imuSample = poller.getImuSample();
+            if (imuSample != null) {
+                heading = imuSample.heading;
+                imuTimestamp = imuSample.timestamp;
+            }
+            return;
+        }
+
+        double now = clock.seconds();
+
+        if (color != null && isDue(now, colorTimestamp, colorSensorRate)) {
+            colorDistance = color.getDistance(DistanceUnit.CM);
+            HardwareHub.recordNonBulkCommand();
+            colorTimestamp = now;
+        }
+
+        if (imu != null && isDue(now, imuTimestamp, imuRate)) {
+            heading = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.RADIANS).firstAngle;
+            HardwareHub.recordNonBulkCommand();
+            imuTimestamp = now;
+        }
+    }
+
+    private static boolean isDue(double now, double lastRead, double rate) {
+        return rate <= 0 || now - lastRead >= 1 / rate;
+    }
+
+    /**
+     * @return distance reported by the intake color sensor in cm, NaN before the first read
+     */
+    public double getColorDistance() {
+        return colorDistance;
+    }
+
+    /**
+     * @return time in seconds (on {@link Clock}) when the color sensor was last read
+     */
+    public double getColorTimestamp() {
+        return colorTimestamp;
+    }
+
+    /**
+     * @return heading (first intrinsic ZYX angle) reported by the IMU
+     */
+    public double getHeading(AngleUnit unit) {
+        return unit.fromRadians(heading);
+    }
+
+    /**
+     * @return time in seconds (on {@link Clock}) when the IMU was last read
+     */
+    public double getImuTimestamp() {
+        return imuTimestamp;
+    }
+
+    public boolean isColorStale() {
+        return clock.seconds() - colorTimestamp > SensorPoller.staleTimeout;
+    }
+
+    public boolean isImuStale() {
+        return clock.seconds() - imuTimestamp > SensorPoller.staleTimeout;
+    }
+}
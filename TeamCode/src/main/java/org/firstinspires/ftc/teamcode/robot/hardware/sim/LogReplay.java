@@ -0,0 +1,281 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.Gamepad;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.FlightLog;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LogHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Feeds a {@link FlightLog} back through the robot code on simulated hardware, as fast as it will run, and
+ * checks that the code commands the same outputs it did on the robot.
+ * <p>
+ * For every record the {@link Clock} is set to the recorded time, the encoders, motor currents, IMU heading,
+ * color distance and battery voltage on the {@link SimHardwareMap} are set to what was read on the robot and
+ * the gamepads to what the drivers were pressing. Then the loop runs, and every compared field is checked
+ * against the log through {@link FlightRecorder#get(int)}, so it sees exactly what would have been recorded.
+ * <p>
+ * The clock is only taken over while {@link #run(Runnable, Step, BooleanSupplier)} runs and is always handed back,
+ * even if the code under test throws. Construct the subsystems in its setup so their timers start on the
+ * replayed clock.
+ */
+public class LogReplay {
+    /**
+     * One loop of the code under test
+     */
+    public interface Step {
+        void run(int record);
+    }
+
+    private final FlightLog log;
+
+    private final List<SimMotor> motors = new ArrayList<>();
+    private final List<float[]> motorPositions = new ArrayList<>();
+    private final List<float[]> motorCurrents = new ArrayList<>();
+    private final SimImu imu;
+    private final float[] imuHeadings;
+    private final SimColorSensor color;
+    private final float[] colorDistances;
+    private final SimVoltageSensor voltageSensor;
+    private final float[] voltages;
+
+    private final Gamepad gamepad1 = new Gamepad();
+    private final Gamepad gamepad2 = new Gamepad();
+    private final float[][] gamepad1Columns;
+    private final float[][] gamepad2Columns;
+
+    private final List<String> comparedNames = new ArrayList<>();
+    private final List<Integer> comparedFields = new ArrayList<>();
+    private final List<float[]> comparedColumns = new ArrayList<>();
+    private final List<Double> tolerances = new ArrayList<>();
+    private long[] mismatches = new long[0];
+    private int[] firstMismatches = new int[0];
+    private double[] maxErrors = new double[0];
+
+    private final LogHistogram loopTimes = new LogHistogram();
+    private int replayedRecords = 0;
+
+    public LogReplay(FlightLog log, SimHardwareMap hardwareMap) {
+        this.log = log;
+
+        for (Map.Entry<String, DcMotor> entry : hardwareMap.dcMotor.entrySet()) {
+            if (entry.getValue() instanceof SimMotor) {
+                motors.add((SimMotor) entry.getValue());
+                motorPositions.add(log.getColumn(entry.getKey() + " position"));
+                motorCurrents.add(log.getColumn(entry.getKey() + " current"));
+            }
+        }
+
+        imu = hardwareMap.tryGet(SimImu.class, "imu");
+        imuHeadings = log.getColumn("imu heading");
+        color = hardwareMap.tryGet(SimColorSensor.class, "color");
+        colorDistances = log.getColumn("color distance");
+        VoltageSensor sensor = hardwareMap.voltageSensor.iterator().hasNext()
+                ? hardwareMap.voltageSensor.iterator().next() : null;
+        voltageSensor = sensor instanceof SimVoltageSensor ? (SimVoltageSensor) sensor : null;
+        voltages = log.getColumn("battery voltage");
+
+        gamepad1Columns = gamepadColumns("gamepad1");
+        gamepad2Columns = gamepadColumns("gamepad2");
+    }
+
+    private float[][] gamepadColumns(String prefix) {
+        return new float[][] {
+                log.getColumn(prefix + " left_stick_x"),
+                log.getColumn(prefix + " left_stick_y"),
+                log.getColumn(prefix + " right_stick_x"),
+                log.getColumn(prefix + " right_stick_y"),
+                log.getColumn(prefix + " left_trigger"),
+                log.getColumn(prefix + " right_trigger"),
+                log.getColumn(prefix + " buttons")
+        };
+    }
+
+    /**
+     * Checks a field against the log after every loop. Does nothing if the log doesn't have it.
+     *
+     * @param tolerance largest difference that isn't counted as a mismatch
+     */
+    public void compare(String name, double tolerance) {
+        float[] column = log.getColumn(name);
+        if (column == null || comparedNames.contains(name)) {
+            return;
+        }
+        comparedNames.add(name);
+        comparedFields.add(FlightRecorder.field(name));
+        comparedColumns.add(column);
+        tolerances.add(tolerance);
+    }
+
+    /**
+     * Compares every commanded output in the log: motor powers and subsystem states
+     */
+    public void compareOutputs(double tolerance) {
+        for (String name : log.getFieldNames()) {
+            if (name.endsWith(" power") || name.endsWith(" state")) {
+                compare(name, tolerance);
+            }
+        }
+    }
+
+    /**
+     * Replays every record in the log through the step, until it runs out of records, the thread is interrupted or
+     * active returns false
+     *
+     * @param setup run once the clock is at the first record, before any step
+     */
+    public void run(Runnable setup, Step step, BooleanSupplier active) {
+        int compared = comparedNames.size();
+        mismatches = new long[compared];
+        firstMismatches = new int[compared];
+        maxErrors = new double[compared];
+        for (int i = 0; i < compared; i++) {
+            firstMismatches[i] = -1;
+        }
+        loopTimes.reset();
+        replayedRecords = 0;
+
+        Clock.setTime(log.getRecordCount() > 0 ? log.getTimestamp(0) : 0);
+        try {
+            setup.run();
+            for (int r = 0; r < log.getRecordCount(); r++) {
+                if (Thread.currentThread().isInterrupted() || !active.getAsBoolean()) {
+                    break;
+                }
+                Clock.setTime(log.getTimestamp(r));
+                applyInputs(r);
+
+                long start = System.nanoTime();
+                step.run(r);
+                loopTimes.record(System.nanoTime() - start);
+
+                for (int i = 0; i < compared; i++) {
+                    double error = Math.abs(FlightRecorder.get(comparedFields.get(i)) - comparedColumns.get(i)[r]);
+                    if (error > tolerances.get(i)) {
+                        mismatches[i]++;
+                        if (firstMismatches[i] < 0) {
+                            firstMismatches[i] = r;
+                        }
+                    }
+                    maxErrors[i] = Math.max(maxErrors[i], error);
+                }
+                replayedRecords = r + 1;
+            }
+        } finally {
+            Clock.useSystemTime();
+        }
+    }
+
+    private void applyInputs(int r) {
+        for (int i = 0; i < motors.size(); i++) {
+            float[] positions = motorPositions.get(i);
+            if (positions != null) {
+                motors.get(i).setSimPosition(Math.round(positions[r]));
+            }
+            float[] currents = motorCurrents.get(i);
+            if (currents != null) {
+                motors.get(i).setSimCurrent(currents[r]);
+            }
+        }
+        if (imu != null && imuHeadings != null) {
+            imu.setSimHeading(imuHeadings[r], AngleUnit.RADIANS);
+        }
+        if (color != null && colorDistances != null) {
+            color.setSimDistance(colorDistances[r], DistanceUnit.CM);
+        }
+        if (voltageSensor != null && voltages != null) {
+            voltageSensor.setSimVoltage(voltages[r]);
+        }
+        applyGamepad(gamepad1, gamepad1Columns, r);
+        applyGamepad(gamepad2, gamepad2Columns, r);
+    }
+
+    private static void applyGamepad(Gamepad gamepad, float[][] columns, int r) {
+        if (columns[0] != null) gamepad.left_stick_x = columns[0][r];
+        if (columns[1] != null) gamepad.left_stick_y = columns[1][r];
+        if (columns[2] != null) gamepad.right_stick_x = columns[2][r];
+        if (columns[3] != null) gamepad.right_stick_y = columns[3][r];
+        if (columns[4] != null) gamepad.left_trigger = columns[4][r];
+        if (columns[5] != null) gamepad.right_trigger = columns[5][r];
+        if (columns[6] == null) {
+            return;
+        }
+
+        // same bit order as FlightLog.BUTTONS
+        int mask = (int) columns[6][r];
+        gamepad.a = (mask & 1) != 0;
+        gamepad.b = (mask & 1 << 1) != 0;
+        gamepad.x = (mask & 1 << 2) != 0;
+        gamepad.y = (mask & 1 << 3) != 0;
+        gamepad.dpad_up = (mask & 1 << 4) != 0;
+        gamepad.dpad_down = (mask & 1 << 5) != 0;
+        gamepad.dpad_left = (mask & 1 << 6) != 0;
+        gamepad.dpad_right = (mask & 1 << 7) != 0;
+        gamepad.left_bumper = (mask & 1 << 8) != 0;
+        gamepad.right_bumper = (mask & 1 << 9) != 0;
+        gamepad.left_stick_button = (mask & 1 << 10) != 0;
+        gamepad.right_stick_button = (mask & 1 << 11) != 0;
+        gamepad.back = (mask & 1 << 12) != 0;
+        gamepad.start = (mask & 1 << 13) != 0;
+        gamepad.guide = (mask & 1 << 14) != 0;
+    }
+
+    public FlightLog getLog() {
+        return log;
+    }
+
+    public Gamepad getGamepad1() {
+        return gamepad1;
+    }
+
+    public Gamepad getGamepad2() {
+        return gamepad2;
+    }
+
+    public int getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * @return CPU time of every replayed loop, not including setting the inputs or comparing
+     */
+    public LogHistogram getLoopTimes() {
+        return loopTimes;
+    }
+
+    public int getComparedCount() {
+        return comparedNames.size();
+    }
+
+    public String getComparedName(int i) {
+        return comparedNames.get(i);
+    }
+
+    /**
+     * @return number of records where the field was off by more than its tolerance
+     */
+    public long getMismatches(int i) {
+        return mismatches[i];
+    }
+
+    /**
+     * @return first record where the field was off by more than its tolerance, or -1
+     */
+    public int getFirstMismatch(int i) {
+        return firstMismatches[i];
+    }
+
+    public double getMaxError(int i) {
+        return maxErrors[i];
+    }
+}
@@ -0,0 +1,115 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.robotcore.hardware.ColorSensor;
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+import com.qualcomm.robotcore.hardware.I2cAddr;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+
+/**
+ * Stands in for the REV color sensor V3. Only the color and distance interfaces the robot code uses are
+ * implemented, which is why the code looks the sensor up as a {@link DistanceSensor}.
+ */
+public class SimColorSensor implements ColorSensor, DistanceSensor {
+    private final SimHardwareMap hardwareMap;
+    private final String name;
+
+    private double distance = 10; // cm
+    private int red = 0;
+    private int green = 0;
+    private int blue = 0;
+    private I2cAddr address = I2cAddr.create7bit(0x52);
+
+    SimColorSensor(SimHardwareMap hardwareMap, String name) {
+        this.hardwareMap = hardwareMap;
+        this.name = name;
+    }
+
+    public void setSimDistance(double distance, DistanceUnit unit) {
+        this.distance = unit.toCm(distance);
+    }
+
+    public void setSimColor(int red, int green, int blue) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+    }
+
+    @Override
+    public double getDistance(DistanceUnit unit) {
+        hardwareMap.recordCall();
+        return unit.fromCm(distance);
+    }
+
+    @Override
+    public int red() {
+        hardwareMap.recordCall();
+        return red;
+    }
+
+    @Override
+    public int green() {
+        hardwareMap.recordCall();
+        return green;
+    }
+
+    @Override
+    public int blue() {
+        hardwareMap.recordCall();
+        return blue;
+    }
+
+    @Override
+    public int alpha() {
+        hardwareMap.recordCall();
+        return (red + green + blue) / 3;
+    }
+
+    @Override
+    public int argb() {
+        hardwareMap.recordCall();
+        return (0xFF << 24) | ((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF);
+    }
+
+    @Override
+    public void enableLed(boolean enable) {
+    }
+
+    @Override
+    public void setI2cAddress(I2cAddr newAddress) {
+        address = newAddress;
+    }
+
+    @Override
+    public I2cAddr getI2cAddress() {
+        return address;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Color Sensor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
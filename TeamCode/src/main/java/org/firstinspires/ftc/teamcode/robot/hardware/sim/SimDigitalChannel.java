@@ -0,0 +1,86 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.robotcore.hardware.DigitalChannel;
+import com.qualcomm.robotcore.hardware.DigitalChannelController;
+
+/**
+ * Digital input whose state is set by the test, e.g. to break the beam of a beam breaker
+ */
+public class SimDigitalChannel implements DigitalChannel {
+    private final SimHardwareMap hardwareMap;
+    private final String name;
+
+    private Mode mode = Mode.INPUT;
+    private boolean state = true;
+
+    SimDigitalChannel(SimHardwareMap hardwareMap, String name) {
+        this.hardwareMap = hardwareMap;
+        this.name = name;
+    }
+
+    /**
+     * Sets what {@link #getState()} returns while in input mode
+     */
+    public void setSimState(boolean state) {
+        this.state = state;
+    }
+
+    @Override
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void setMode(Mode mode) {
+        hardwareMap.recordCall();
+        this.mode = mode;
+    }
+
+    @Deprecated
+    public void setMode(DigitalChannelController.Mode mode) {
+        setMode(mode == DigitalChannelController.Mode.INPUT ? Mode.INPUT : Mode.OUTPUT);
+    }
+
+    @Override
+    public boolean getState() {
+        hardwareMap.recordCall();
+        return state;
+    }
+
+    @Override
+    public void setState(boolean state) {
+        hardwareMap.recordCall();
+        if (mode == Mode.OUTPUT) {
+            this.state = state;
+        }
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Digital Channel";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        mode = Mode.INPUT;
+    }
+
+    @Override
+    public void close() {
+    }
+}
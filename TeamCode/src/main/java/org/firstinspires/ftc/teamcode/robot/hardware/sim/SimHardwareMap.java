@@ -0,0 +1,135 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hardware map filled with simulated devices, so subsystems can be constructed and run without a robot.
+ * {@link #robot()} registers every device the robot config has under the same names, so Lift, Intake,
+ * ScoringMech, Drivetrain and SampleMecanumDrive can be built from it unmodified.
+ * <p>
+ * Call {@link #update()} once per loop, it steps the motor and IMU physics by the real time since the last
+ * call and rolls over the count of calls made into the simulated devices.
+ */
+public class SimHardwareMap extends HardwareMap {
+    private final List<SimMotor> motors = new ArrayList<>();
+    private final List<SimImu> imus = new ArrayList<>();
+
+    private long lastUpdate = -1;
+    private int calls = 0;
+    private int lastCalls = 0;
+    private long totalCalls = 0;
+
+    public SimHardwareMap() {
+        super(null, null);
+    }
+
+    /**
+     * @return hardware map with every device on the competition robot
+     */
+    public static SimHardwareMap robot() {
+        SimHardwareMap hardwareMap = new SimHardwareMap();
+
+        hardwareMap.addMotor("flMotor");
+        hardwareMap.addMotor("frMotor");
+        hardwareMap.addMotor("rlMotor");
+        hardwareMap.addMotor("rrMotor");
+        hardwareMap.addMotor("lift1");
+        hardwareMap.addMotor("lift2");
+        hardwareMap.addMotor("intake1");
+        hardwareMap.addMotor("intake2");
+
+        hardwareMap.addServo("yaw1");
+        hardwareMap.addServo("yaw2");
+        hardwareMap.addServo("grab");
+        hardwareMap.addServo("extension");
+        hardwareMap.addServo("v4b1");
+        hardwareMap.addServo("v4b2");
+        hardwareMap.addServo("claw");
+
+        hardwareMap.addDigitalChannel("beamBreaker");
+        hardwareMap.addColorSensor("color");
+        hardwareMap.addImu("imu");
+        hardwareMap.addVoltageSensor("Control Hub");
+
+        return hardwareMap;
+    }
+
+    public SimMotor addMotor(String name) {
+        SimMotor motor = new SimMotor(this, name, motors.size() % 4);
+        motors.add(motor);
+        dcMotor.put(name, motor);
+        put(name, motor);
+        return motor;
+    }
+
+    public SimServo addServo(String name) {
+        SimServo servo = new SimServo(this, name, this.servo.size() % 6);
+        this.servo.put(name, servo);
+        put(name, servo);
+        return servo;
+    }
+
+    public SimDigitalChannel addDigitalChannel(String name) {
+        SimDigitalChannel channel = new SimDigitalChannel(this, name);
+        digitalChannel.put(name, channel);
+        put(name, channel);
+        return channel;
+    }
+
+    public SimColorSensor addColorSensor(String name) {
+        SimColorSensor sensor = new SimColorSensor(this, name);
+        colorSensor.put(name, sensor);
+        put(name, sensor);
+        return sensor;
+    }
+
+    public SimImu addImu(String name) {
+        SimImu imu = new SimImu(this, name);
+        imus.add(imu);
+        put(name, imu);
+        return imu;
+    }
+
+    public SimVoltageSensor addVoltageSensor(String name) {
+        SimVoltageSensor sensor = new SimVoltageSensor(this, name);
+        voltageSensor.put(name, sensor);
+        put(name, sensor);
+        return sensor;
+    }
+
+    public void update() {
+        long now = System.nanoTime();
+        if (lastUpdate >= 0) {
+            double dt = (now - lastUpdate) / 1e9;
+            for (SimMotor motor : motors) {
+                motor.step(dt);
+            }
+            for (SimImu imu : imus) {
+                imu.step(dt);
+            }
+        }
+        lastUpdate = now;
+
+        lastCalls = calls;
+        totalCalls += calls;
+        calls = 0;
+    }
+
+    void recordCall() {
+        calls++;
+    }
+
+    /**
+     * @return number of calls made into the simulated devices during the last completed loop
+     */
+    public int getCallsLastLoop() {
+        return lastCalls;
+    }
+
+    public long getTotalCalls() {
+        return totalCalls + calls;
+    }
+}
@@ -0,0 +1,233 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.hardware.bosch.BNO055IMU;
+import com.qualcomm.robotcore.hardware.HardwareDevice;
+
+import org.firstinspires.ftc.robotcore.external.navigation.Acceleration;
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.AngularVelocity;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
+import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
+import org.firstinspires.ftc.robotcore.external.navigation.MagneticFlux;
+import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+import org.firstinspires.ftc.robotcore.external.navigation.Quaternion;
+import org.firstinspires.ftc.robotcore.external.navigation.Temperature;
+import org.firstinspires.ftc.robotcore.external.navigation.Velocity;
+
+/**
+ * IMU that only knows about heading. The heading integrates the yaw rate set by the test on every
+ * {@link SimHardwareMap#update()}; everything else reads as a robot sitting still and fully calibrated.
+ * <p>
+ * The yaw rate is reported on both the z and (negated) x axes, since the drive code reads it off x to work
+ * around the BNO055 axis mix-up.
+ */
+public class SimImu implements BNO055IMU, HardwareDevice {
+    private final SimHardwareMap hardwareMap;
+    private final String name;
+
+    private Parameters parameters = new Parameters();
+    private double heading = 0; // radians
+    private double headingVelocity = 0; // radians per second
+
+    SimImu(SimHardwareMap hardwareMap, String name) {
+        this.hardwareMap = hardwareMap;
+        this.name = name;
+    }
+
+    void step(double dt) {
+        heading += headingVelocity * dt;
+    }
+
+    public void setSimHeading(double heading, AngleUnit unit) {
+        this.heading = unit.toRadians(heading);
+    }
+
+    public void setSimHeadingVelocity(double headingVelocity, AngleUnit unit) {
+        this.headingVelocity = unit.toRadians(headingVelocity);
+    }
+
+    @Override
+    public boolean initialize(Parameters parameters) {
+        hardwareMap.recordCall();
+        this.parameters = parameters;
+        return true;
+    }
+
+    @Override
+    public Parameters getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public Orientation getAngularOrientation() {
+        return getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, parameters.angleUnit.toAngleUnit());
+    }
+
+    @Override
+    public Orientation getAngularOrientation(AxesReference reference, AxesOrder order, AngleUnit angleUnit) {
+        hardwareMap.recordCall();
+        float wrapped = (float) angleUnit.fromRadians(AngleUnit.normalizeRadians(heading));
+        return new Orientation(reference, order, angleUnit, wrapped, 0, 0, System.nanoTime());
+    }
+
+    @Override
+    public AngularVelocity getAngularVelocity() {
+        hardwareMap.recordCall();
+        return new AngularVelocity(AngleUnit.RADIANS,
+                (float) -headingVelocity, 0, (float) headingVelocity, System.nanoTime());
+    }
+
+    @Override
+    public Acceleration getOverallAcceleration() {
+        hardwareMap.recordCall();
+        return new Acceleration();
+    }
+
+    @Override
+    public Acceleration getLinearAcceleration() {
+        hardwareMap.recordCall();
+        return new Acceleration();
+    }
+
+    @Override
+    public Acceleration getGravity() {
+        hardwareMap.recordCall();
+        return new Acceleration();
+    }
+
+    @Override
+    public Temperature getTemperature() {
+        hardwareMap.recordCall();
+        return new Temperature();
+    }
+
+    @Override
+    public MagneticFlux getMagneticFieldStrength() {
+        hardwareMap.recordCall();
+        return new MagneticFlux();
+    }
+
+    @Override
+    public Quaternion getQuaternionOrientation() {
+        hardwareMap.recordCall();
+        return new Quaternion((float) Math.cos(heading / 2), 0, 0, (float) Math.sin(heading / 2), System.nanoTime());
+    }
+
+    @Override
+    public Position getPosition() {
+        return new Position();
+    }
+
+    @Override
+    public Velocity getVelocity() {
+        return new Velocity();
+    }
+
+    @Override
+    public Acceleration getAcceleration() {
+        return new Acceleration();
+    }
+
+    @Override
+    public void startAccelerationIntegration(Position initialPosition, Velocity initialVelocity, int msPollInterval) {
+    }
+
+    @Override
+    public void stopAccelerationIntegration() {
+    }
+
+    @Override
+    public SystemStatus getSystemStatus() {
+        return SystemStatus.RUNNING_FUSION;
+    }
+
+    @Override
+    public SystemError getSystemError() {
+        return SystemError.NO_ERROR;
+    }
+
+    @Override
+    public CalibrationStatus getCalibrationStatus() {
+        return new CalibrationStatus(0xFF);
+    }
+
+    @Override
+    public boolean isSystemCalibrated() {
+        return true;
+    }
+
+    @Override
+    public boolean isGyroCalibrated() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccelerometerCalibrated() {
+        return true;
+    }
+
+    @Override
+    public boolean isMagnetometerCalibrated() {
+        return true;
+    }
+
+    @Override
+    public CalibrationData readCalibrationData() {
+        return new CalibrationData();
+    }
+
+    @Override
+    public void writeCalibrationData(CalibrationData data) {
+    }
+
+    @Override
+    public byte read8(Register register) {
+        hardwareMap.recordCall();
+        return 0;
+    }
+
+    @Override
+    public byte[] read(Register register, int cb) {
+        hardwareMap.recordCall();
+        return new byte[cb];
+    }
+
+    @Override
+    public void write8(Register register, int bVal) {
+        hardwareMap.recordCall();
+    }
+
+    @Override
+    public void write(Register register, byte[] data) {
+        hardwareMap.recordCall();
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated IMU";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,364 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+/**
+ * Motor and encoder with first order physics: the velocity approaches power * {@link #freeSpeed} with time
+ * constant {@link #timeConstant}, and the current is proportional to how far the motor is from that speed.
+ * The state only changes when {@link SimHardwareMap#update()} steps it.
+ */
+@Config
+public class SimMotor implements DcMotorEx {
+    // Config parameters
+    public static double freeSpeed = 2800; // ticks per second at full power
+    public static double timeConstant = 0.05; // seconds
+    public static double brakeTimeConstant = 0.02; // seconds
+    public static double stallCurrent = 10; // amps
+    public static double runToPositionGain = 0.005; // power per tick of error
+
+    private final SimHardwareMap hardwareMap;
+    private final String name;
+    private final int port;
+
+    private double power = 0;
+    private double velocityCommand = Double.NaN;
+    private double position = 0; // ticks, in the motor's own frame
+    private double velocity = 0; // ticks per second, in the motor's own frame
+    private double appliedPower = 0;
+    private double simCurrent = Double.NaN; // amps, overrides the model when set
+
+    private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+    private Direction direction = Direction.FORWARD;
+    private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+    private MotorConfigurationType motorType = MotorConfigurationType.getUnspecifiedMotorType();
+    private PIDFCoefficients velocityCoefficients = new PIDFCoefficients(10, 3, 0, 0);
+    private PIDFCoefficients positionCoefficients = new PIDFCoefficients(10, 0, 0, 0);
+    private boolean enabled = true;
+    private int targetPosition = 0;
+    private int targetPositionTolerance = 5;
+    private double currentAlert = 0;
+
+    SimMotor(SimHardwareMap hardwareMap, String name, int port) {
+        this.hardwareMap = hardwareMap;
+        this.name = name;
+        this.port = port;
+    }
+
+    void step(double dt) {
+        double target;
+        double tau = timeConstant;
+        if (!enabled) {
+            appliedPower = 0;
+            target = 0;
+        } else if (mode == RunMode.RUN_TO_POSITION) {
+            double error = getSign() * targetPosition - position;
+            appliedPower = Math.max(-Math.abs(power), Math.min(Math.abs(power), error * runToPositionGain));
+            target = appliedPower * freeSpeed;
+        } else if (!Double.isNaN(velocityCommand)) {
+            target = Math.max(-freeSpeed, Math.min(freeSpeed, velocityCommand));
+            appliedPower = target / freeSpeed;
+        } else {
+            appliedPower = getSign() * power;
+            target = appliedPower * freeSpeed;
+        }
+
+        if (appliedPower == 0 && zeroPowerBehavior == ZeroPowerBehavior.BRAKE) {
+            tau = brakeTimeConstant;
+        }
+
+        velocity += (target - velocity) * Math.min(dt / tau, 1);
+        position += velocity * dt;
+    }
+
+    private int getSign() {
+        return direction == Direction.FORWARD ? 1 : -1;
+    }
+
+    /**
+     * Moves the encoder without going through the physics, e.g. to start a test somewhere specific
+     */
+    public void setSimPosition(int ticks) {
+        position = getSign() * ticks;
+    }
+
+    /**
+     * Makes {@link #getCurrent(CurrentUnit)} report a fixed current instead of the modelled one, NaN goes back
+     * to the model
+     */
+    public void setSimCurrent(double amps) {
+        simCurrent = amps;
+    }
+
+    @Override
+    public void setPower(double power) {
+        hardwareMap.recordCall();
+        this.power = Math.max(-1, Math.min(1, power));
+        velocityCommand = Double.NaN;
+    }
+
+    @Override
+    public double getPower() {
+        hardwareMap.recordCall();
+        return power;
+    }
+
+    @Override
+    public void setMode(RunMode mode) {
+        hardwareMap.recordCall();
+        if (mode == RunMode.STOP_AND_RESET_ENCODER) {
+            position = 0;
+            velocity = 0;
+            power = 0;
+            velocityCommand = Double.NaN;
+        }
+        this.mode = mode;
+    }
+
+    @Override
+    public RunMode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        hardwareMap.recordCall();
+        this.direction = direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void setMotorEnable() {
+        hardwareMap.recordCall();
+        enabled = true;
+    }
+
+    @Override
+    public void setMotorDisable() {
+        hardwareMap.recordCall();
+        enabled = false;
+    }
+
+    @Override
+    public boolean isMotorEnabled() {
+        hardwareMap.recordCall();
+        return enabled;
+    }
+
+    @Override
+    public void setVelocity(double angularRate) {
+        hardwareMap.recordCall();
+        velocityCommand = getSign() * angularRate;
+    }
+
+    @Override
+    public void setVelocity(double angularRate, AngleUnit unit) {
+        setVelocity(unit.toDegrees(angularRate) / 360 * getTicksPerRev());
+    }
+
+    @Override
+    public double getVelocity() {
+        hardwareMap.recordCall();
+        return getSign() * velocity;
+    }
+
+    @Override
+    public double getVelocity(AngleUnit unit) {
+        return unit.fromDegrees(getVelocity() / getTicksPerRev() * 360);
+    }
+
+    private double getTicksPerRev() {
+        double ticksPerRev = motorType.getTicksPerRev();
+        return ticksPerRev > 0 ? ticksPerRev : 28;
+    }
+
+    @Deprecated
+    @Override
+    public void setPIDCoefficients(RunMode mode, PIDCoefficients pidCoefficients) {
+        setPIDFCoefficients(mode, new PIDFCoefficients(pidCoefficients.p, pidCoefficients.i, pidCoefficients.d, 0));
+    }
+
+    @Override
+    public void setPIDFCoefficients(RunMode mode, PIDFCoefficients pidfCoefficients) {
+        hardwareMap.recordCall();
+        if (mode == RunMode.RUN_TO_POSITION) {
+            positionCoefficients = new PIDFCoefficients(pidfCoefficients);
+        } else {
+            velocityCoefficients = new PIDFCoefficients(pidfCoefficients);
+        }
+    }
+
+    @Override
+    public void setVelocityPIDFCoefficients(double p, double i, double d, double f) {
+        setPIDFCoefficients(RunMode.RUN_USING_ENCODER, new PIDFCoefficients(p, i, d, f));
+    }
+
+    @Override
+    public void setPositionPIDFCoefficients(double p) {
+        setPIDFCoefficients(RunMode.RUN_TO_POSITION, new PIDFCoefficients(p, 0, 0, 0));
+    }
+
+    @Deprecated
+    @Override
+    public PIDCoefficients getPIDCoefficients(RunMode mode) {
+        PIDFCoefficients coefficients = getPIDFCoefficients(mode);
+        return new PIDCoefficients(coefficients.p, coefficients.i, coefficients.d);
+    }
+
+    @Override
+    public PIDFCoefficients getPIDFCoefficients(RunMode mode) {
+        hardwareMap.recordCall();
+        return new PIDFCoefficients(mode == RunMode.RUN_TO_POSITION ? positionCoefficients : velocityCoefficients);
+    }
+
+    @Override
+    public void setTargetPositionTolerance(int tolerance) {
+        hardwareMap.recordCall();
+        targetPositionTolerance = tolerance;
+    }
+
+    @Override
+    public int getTargetPositionTolerance() {
+        hardwareMap.recordCall();
+        return targetPositionTolerance;
+    }
+
+    @Override
+    public double getCurrent(CurrentUnit unit) {
+        hardwareMap.recordCall();
+        double amps = Double.isNaN(simCurrent)
+                ? stallCurrent * Math.abs(appliedPower - velocity / freeSpeed)
+                : simCurrent;
+        return unit == CurrentUnit.AMPS ? amps : amps * 1000;
+    }
+
+    @Override
+    public double getCurrentAlert(CurrentUnit unit) {
+        hardwareMap.recordCall();
+        return unit == CurrentUnit.AMPS ? currentAlert : currentAlert * 1000;
+    }
+
+    @Override
+    public void setCurrentAlert(double current, CurrentUnit unit) {
+        hardwareMap.recordCall();
+        currentAlert = unit == CurrentUnit.AMPS ? current : current / 1000;
+    }
+
+    @Override
+    public boolean isOverCurrent() {
+        return currentAlert > 0 && getCurrent(CurrentUnit.AMPS) > currentAlert;
+    }
+
+    @Override
+    public MotorConfigurationType getMotorType() {
+        return motorType;
+    }
+
+    @Override
+    public void setMotorType(MotorConfigurationType motorType) {
+        this.motorType = motorType;
+    }
+
+    @Override
+    public DcMotorController getController() {
+        return null;
+    }
+
+    @Override
+    public int getPortNumber() {
+        return port;
+    }
+
+    @Override
+    public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) {
+        hardwareMap.recordCall();
+        this.zeroPowerBehavior = zeroPowerBehavior;
+    }
+
+    @Override
+    public ZeroPowerBehavior getZeroPowerBehavior() {
+        return zeroPowerBehavior;
+    }
+
+    @Deprecated
+    @Override
+    public void setPowerFloat() {
+        setZeroPowerBehavior(ZeroPowerBehavior.FLOAT);
+        setPower(0);
+    }
+
+    @Override
+    public boolean getPowerFloat() {
+        return zeroPowerBehavior == ZeroPowerBehavior.FLOAT && power == 0;
+    }
+
+    @Override
+    public void setTargetPosition(int position) {
+        hardwareMap.recordCall();
+        targetPosition = position;
+    }
+
+    @Override
+    public int getTargetPosition() {
+        hardwareMap.recordCall();
+        return targetPosition;
+    }
+
+    @Override
+    public boolean isBusy() {
+        hardwareMap.recordCall();
+        return mode == RunMode.RUN_TO_POSITION
+                && Math.abs(targetPosition - getSign() * position) > targetPositionTolerance;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        hardwareMap.recordCall();
+        return (int) Math.round(getSign() * position);
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Motor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        power = 0;
+        velocityCommand = Double.NaN;
+        mode = RunMode.RUN_WITHOUT_ENCODER;
+        direction = Direction.FORWARD;
+        zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+        enabled = true;
+    }
+
+    @Override
+    public void close() {
+    }
+}
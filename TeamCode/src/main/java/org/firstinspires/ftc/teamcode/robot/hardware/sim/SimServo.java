@@ -0,0 +1,101 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.robotcore.hardware.Servo;
+import com.qualcomm.robotcore.hardware.ServoController;
+
+/**
+ * Servo that reports back whatever position was last commanded, after direction and range scaling
+ */
+public class SimServo implements Servo {
+    private final SimHardwareMap hardwareMap;
+    private final String name;
+    private final int port;
+
+    private double position = Double.NaN;
+    private Direction direction = Direction.FORWARD;
+    private double min = 0;
+    private double max = 1;
+
+    SimServo(SimHardwareMap hardwareMap, String name, int port) {
+        this.hardwareMap = hardwareMap;
+        this.name = name;
+        this.port = port;
+    }
+
+    /**
+     * @return position the servo would actually be driven to, in the 0-1 range of the hardware
+     */
+    public double getRawPosition() {
+        double scaled = direction == Direction.FORWARD ? position : 1 - position;
+        return min + scaled * (max - min);
+    }
+
+    @Override
+    public void setPosition(double position) {
+        hardwareMap.recordCall();
+        this.position = Math.max(0, Math.min(1, position));
+    }
+
+    @Override
+    public double getPosition() {
+        hardwareMap.recordCall();
+        return position;
+    }
+
+    @Override
+    public ServoController getController() {
+        return null;
+    }
+
+    @Override
+    public int getPortNumber() {
+        return port;
+    }
+
+    @Override
+    public void setDirection(Direction direction) {
+        this.direction = direction;
+    }
+
+    @Override
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public void scaleRange(double min, double max) {
+        this.min = Math.max(0, Math.min(min, max));
+        this.max = Math.min(1, Math.max(min, max));
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Servo";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+        direction = Direction.FORWARD;
+        min = 0;
+        max = 1;
+    }
+
+    @Override
+    public void close() {
+    }
+}
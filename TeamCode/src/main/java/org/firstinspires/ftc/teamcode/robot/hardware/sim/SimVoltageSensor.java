@@ -0,0 +1,56 @@
+package org.firstinspires.ftc.teamcode.robot.hardware.sim;
+
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+/**
+ * Battery voltage sensor that reports a voltage set by the test
+ */
+public class SimVoltageSensor implements VoltageSensor {
+    private final SimHardwareMap hardwareMap;
+    private final String name;
+
+    private double voltage = 12.5;
+
+    SimVoltageSensor(SimHardwareMap hardwareMap, String name) {
+        this.hardwareMap = hardwareMap;
+        this.name = name;
+    }
+
+    public void setSimVoltage(double voltage) {
+        this.voltage = voltage;
+    }
+
+    @Override
+    public double getVoltage() {
+        hardwareMap.recordCall();
+        return voltage;
+    }
+
+    @Override
+    public Manufacturer getManufacturer() {
+        return Manufacturer.Other;
+    }
+
+    @Override
+    public String getDeviceName() {
+        return "Simulated Voltage Sensor";
+    }
+
+    @Override
+    public String getConnectionInfo() {
+        return name;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public void resetDeviceConfigurationForOpMode() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
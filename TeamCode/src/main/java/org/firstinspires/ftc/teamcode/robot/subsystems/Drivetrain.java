@@ -3,15 +3,17 @@ package org.firstinspires.ftc.teamcode.robot.subsystems;
 import com.acmerobotics.dashboard.config.Config;
 import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.hardware.DcMotor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
-import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
-import org.firstinspires.ftc.robotcore.external.navigation.AxesOrder;
-import org.firstinspires.ftc.robotcore.external.navigation.AxesReference;
-import org.firstinspires.ftc.robotcore.external.navigation.Orientation;
+import org.firstinspires.ftc.teamcode.robot.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
 import org.firstinspires.ftc.teamcode.utils.KalmanFilter;
+import org.firstinspires.ftc.teamcode.utils.LazyTelemetry;
 
 @Config
 public class Drivetrain {
@@ -22,10 +24,18 @@ public class Drivetrain {
 
     public static double filterQ = 0.5;
     public static double filterR = 0.5;
+
+    private static final int FL_POWER = FlightRecorder.field("flMotor power");
+    private static final int FR_POWER = FlightRecorder.field("frMotor power");
+    private static final int RL_POWER = FlightRecorder.field("rlMotor power");
+    private static final int RR_POWER = FlightRecorder.field("rrMotor power");
+
+    private static final int TURN_STATE = Dashboard.register("turnState");
     
-    private final Telemetry telemetry;
+    private final LazyTelemetry telemetry;
 
     private final BNO055IMU imu;
+    private final SensorSnapshot sensors;
     private final DcMotor fr;
     private final DcMotor rr;
     private final DcMotor fl;
@@ -36,8 +46,6 @@ public class Drivetrain {
     private double RL_power;
     private double RR_power;
 
-    private final ElapsedTime eTime = new ElapsedTime();
-
     private double errorAutoTurn, errorHeadingControl;
     private double desiredAngleAutoTurn = 0;
     private double desiredAngleHeadingControl = 0;
@@ -54,8 +62,9 @@ public class Drivetrain {
     }
     private DriveMode driveState = DriveMode.AUTO_CONTROL;
 
-    public Drivetrain(HardwareMap hardwareMap, Telemetry multipleTelemetry) {
-        telemetry = multipleTelemetry;
+    public Drivetrain(HardwareMap hardwareMap, Telemetry multipleTelemetry, SensorSnapshot sensors) {
+        telemetry = LazyTelemetry.wrap(multipleTelemetry);
+        this.sensors = sensors;
 
         BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
         parameters.angleUnit           = BNO055IMU.AngleUnit.DEGREES;
@@ -63,10 +72,10 @@ public class Drivetrain {
         parameters.calibrationDataFile = "AdafruitIMUCalibration.json"; // see the calibration sample op mode
         parameters.mode = BNO055IMU.SensorMode.IMU;
 
-        fr = hardwareMap.get(DcMotor.class, "frMotor");
-        rr = hardwareMap.get(DcMotor.class, "rrMotor");
-        fl = hardwareMap.get(DcMotor.class, "flMotor");
-        rl = hardwareMap.get(DcMotor.class, "rlMotor");
+        fr = new CachingMotor(hardwareMap.get(DcMotorEx.class, "frMotor"));
+        rr = new CachingMotor(hardwareMap.get(DcMotorEx.class, "rrMotor"));
+        fl = new CachingMotor(hardwareMap.get(DcMotorEx.class, "flMotor"));
+        rl = new CachingMotor(hardwareMap.get(DcMotorEx.class, "rlMotor"));
 
         fl.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
         fr.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
@@ -86,12 +95,13 @@ public class Drivetrain {
         telemetry.update();
     }
 
-    public void driveRobot(double leftStickY, double leftStickX, double rightStickX, boolean slowMode,
+    /**
+     * @param dt seconds since the last call, for the heading PID
+     */
+    public void driveRobot(double dt, double leftStickY, double leftStickX, double rightStickX, boolean slowMode,
                            boolean autoTurn0, boolean autoTurn90, boolean autoTurn180,
                            boolean autoTurn270) {
-        double time = eTime.time();
-        Orientation angles = imu.getAngularOrientation(AxesReference.INTRINSIC, AxesOrder.ZYX, AngleUnit.DEGREES);
-        double readAngle = angles.firstAngle;
+        double readAngle = sensors.getHeading(AngleUnit.DEGREES);
 
         leftStickX *= 1.1;
 
@@ -108,10 +118,9 @@ public class Drivetrain {
 
         telemetry.addData("Turn Error", errorAutoTurn);
 
-        integral += (errorAutoTurn * time);
-        eTime.reset();
+        integral += (errorAutoTurn * dt);
 
-        double derivative = (errorAutoTurn - previous_error) / time;
+        double derivative = dt > 0 ? (errorAutoTurn - previous_error) / dt : 0;
         double rcw = P * -errorAutoTurn + I * integral + D * derivative;
 
         previous_error = errorAutoTurn;
@@ -183,6 +192,7 @@ public class Drivetrain {
         }
 
         telemetry.addData("turnState", turnState);
+        Dashboard.set(TURN_STATE, turnState);
 
         if (slowMode) {
             FL_power /= 4;
@@ -200,6 +210,11 @@ public class Drivetrain {
         fr.setPower(FR_power);
         rl.setPower(RL_power);
         rr.setPower(RR_power);
+
+        FlightRecorder.set(FL_POWER, FL_power);
+        FlightRecorder.set(FR_POWER, FR_power);
+        FlightRecorder.set(RL_POWER, RL_power);
+        FlightRecorder.set(RR_POWER, RR_power);
     }
 
     public void driveRobotSimple(double y, double x, double rx) {
@@ -5,16 +5,22 @@ import com.acmerobotics.roadrunner.control.PIDCoefficients;
 import com.arcrobotics.ftclib.command.SubsystemBase;
 import com.arcrobotics.ftclib.controller.wpilibcontroller.ProfiledPIDController;
 import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
-import com.qualcomm.hardware.rev.RevColorSensorV3;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.DigitalChannel;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.util.Range;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
-import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.robot.hardware.CurrentMonitor;
 import org.firstinspires.ftc.teamcode.robot.hardware.ProfiledServo;
 import org.firstinspires.ftc.teamcode.robot.hardware.ProfiledServoPair;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LoopProfiler;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
 import org.firstinspires.ftc.teamcode.utils.MotionConstraint;
 
 @Config
@@ -38,6 +44,7 @@ public class Intake extends SubsystemBase {
     public static int errorTolerance = 10;
     public static double slowSpeed = 0.4;
     public static double coneCloseValue = 5;
+    public static double jamThreshold = 8;
     public static double[] stackPositions = {
             0.65,
             0.7,
@@ -46,6 +53,18 @@ public class Intake extends SubsystemBase {
             0.9
     };
 
+    private static final int PERIODIC = LoopProfiler.section("intake");
+
+    private static final int INTAKE1_POSITION = FlightRecorder.field("intake1 position");
+    private static final int INTAKE2_POSITION = FlightRecorder.field("intake2 position");
+    private static final int INTAKE1_CURRENT = FlightRecorder.field("intake1 current");
+    private static final int INTAKE1_POWER = FlightRecorder.field("intake1 power");
+    private static final int INTAKE2_POWER = FlightRecorder.field("intake2 power");
+    private static final int INTAKE_STATE = FlightRecorder.field("intake state");
+
+    private static final int CONE_DETECTIONS = Metrics.counter("intake", "cone detections");
+    private static final int JAMS = Metrics.counter("intake", "jams");
+
     private final Telemetry telemetry;
 
     private DcMotorEx slide1;
@@ -55,7 +74,9 @@ public class Intake extends SubsystemBase {
     private int customTarget;
     private int targetPosition;
 
-    private RevColorSensorV3 color;
+    private final SensorSnapshot sensors;
+    private final CurrentMonitor slideCurrent;
+    private final BatteryMonitor batteryMonitor;
 
     private ProfiledServo claw;
     private ProfiledServoPair v4b;
@@ -74,12 +95,22 @@ public class Intake extends SubsystemBase {
     }
 
     private SlideState slideState = SlideState.RETRACTFULL;
+    private boolean coneDetected = false;
 
-    public Intake(HardwareMap hardwareMap, Telemetry multipleTelemetry) {
+    public Intake(HardwareMap hardwareMap, Telemetry multipleTelemetry, SensorSnapshot sensors) {
+        this(hardwareMap, multipleTelemetry, sensors, null);
+    }
+
+    /**
+     * @param batteryMonitor if not null, the slide output is scaled so it behaves the same at any battery voltage
+     */
+    public Intake(HardwareMap hardwareMap, Telemetry multipleTelemetry, SensorSnapshot sensors, BatteryMonitor batteryMonitor) {
         telemetry = multipleTelemetry;
+        this.sensors = sensors;
+        this.batteryMonitor = batteryMonitor;
 
-        slide1 = hardwareMap.get(DcMotorEx.class, "intake1");
-        slide2 = hardwareMap.get(DcMotorEx.class, "intake2");
+        slide1 = new CachingMotor(hardwareMap.get(DcMotorEx.class, "intake1"));
+        slide2 = new CachingMotor(hardwareMap.get(DcMotorEx.class, "intake2"));
         v4b = new ProfiledServoPair(
                 hardwareMap,
                 "v4b1",
@@ -94,7 +125,8 @@ public class Intake extends SubsystemBase {
                 clawOpenPos
         );
         beamBreaker = hardwareMap.get(DigitalChannel.class, "beamBreaker");
-        color = hardwareMap.get(RevColorSensorV3.class, "color");
+
+        slideCurrent = new CurrentMonitor(slide1);
 
         slide1.setZeroPowerBehavior(DcMotorEx.ZeroPowerBehavior.BRAKE);
         slide1.setMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
@@ -110,9 +142,17 @@ public class Intake extends SubsystemBase {
 
     @Override
     public void periodic() {
+        LoopProfiler.start(PERIODIC);
+
         v4b.periodic();
         claw.periodic();
 
+        boolean detected = isConeDetected();
+        if (detected && !coneDetected) {
+            Metrics.increment(CONE_DETECTIONS);
+        }
+        coneDetected = detected;
+
         switch (slideState) {
             case RETRACTFULL:
                 targetPosition = 0;
@@ -127,7 +167,7 @@ public class Intake extends SubsystemBase {
                 targetPosition = maxExtension;
 
                 if (isConeDetected()) {
-                    slideState = SlideState.STOP;
+                    setSlideState(SlideState.STOP);
                 }
                 break;
 
@@ -139,12 +179,40 @@ public class Intake extends SubsystemBase {
                 break;
         }
 
-        slide1.setPower(intakeController.calculate(slide1.getCurrentPosition(), targetPosition));
-        slide2.setPower(intakeController.calculate(slide2.getCurrentPosition(), targetPosition));
+        double compensation = batteryMonitor == null ? 1 : batteryMonitor.getCompensation();
+        slide1.setPower(Range.clip(intakeController.calculate(slide1.getCurrentPosition(), targetPosition) * compensation, -1, 1));
+        slide2.setPower(Range.clip(intakeController.calculate(slide2.getCurrentPosition(), targetPosition) * compensation, -1, 1));
+
+        slideCurrent.update(jamThreshold);
+        if (slideCurrent.isJammed() && slideState != SlideState.STOP) {
+            Metrics.increment(JAMS);
+            // back off from whatever the slides ran into, or stop pushing if it was the retracted end
+            setSlideState(slideState == SlideState.RETRACTFULL ? SlideState.STOP : SlideState.RETRACTFULL);
+        }
 
         if (intakeController.atGoal() && slideState != SlideState.STOP) {
-            slideState = SlideState.STOP;
+            setSlideState(SlideState.STOP);
         }
+
+        FlightRecorder.set(INTAKE1_POSITION, slide1.getCurrentPosition());
+        FlightRecorder.set(INTAKE2_POSITION, slide2.getCurrentPosition());
+        FlightRecorder.set(INTAKE1_CURRENT, slideCurrent.getLatest());
+        FlightRecorder.set(INTAKE1_POWER, slide1.getPower());
+        FlightRecorder.set(INTAKE2_POWER, slide2.getPower());
+        FlightRecorder.set(INTAKE_STATE, slideState.ordinal());
+
+        LoopProfiler.end(PERIODIC);
+    }
+
+    /**
+     * Starts a new current window whenever the slides change what they are doing, so a jam is only reported for
+     * the current move
+     */
+    private void setSlideState(SlideState state) {
+        if (state != slideState) {
+            slideCurrent.reset();
+        }
+        slideState = state;
     }
 
     public void grab() {
@@ -159,7 +227,7 @@ public class Intake extends SubsystemBase {
 
     public void extendTicks(int ticks, double power, int cycle) {
         customTarget = ticks;
-        slideState = SlideState.CUSTOMEXTEND;
+        setSlideState(SlideState.CUSTOMEXTEND);
         v4b.setPosition(stackPositions[cycle]);
     }
 
@@ -178,14 +246,14 @@ public class Intake extends SubsystemBase {
     }
 
     public void extendFully() {
-        slideState = SlideState.EXTENDING;
+        setSlideState(SlideState.EXTENDING);
     }
 
-    public void extendAuto() { slideState = SlideState.EXTENDING_AUTO; }
+    public void extendAuto() { setSlideState(SlideState.EXTENDING_AUTO); }
 
     public void retractFully() {
         v4b.setPosition(v4bRetractedPos);
-        slideState = SlideState.RETRACTFULL;
+        setSlideState(SlideState.RETRACTFULL);
     }
     /*
     public void retractFully(double v4bpos) {
@@ -198,25 +266,37 @@ public class Intake extends SubsystemBase {
     public void retractPart(double v4bpos) {
         v4b.setPosition(v4bpos);
         //claw.setPosition(clawClosedPos);
-        slideState = SlideState.RETRACTPART;
+        setSlideState(SlideState.RETRACTPART);
     }
 
     public void stopSlides() {
-        slideState = SlideState.STOP;
+        setSlideState(SlideState.STOP);
     }
 
     public boolean isConeDetected() {
-        return color.getDistance(DistanceUnit.CM) < 1.5;
+        return sensors.getColorDistance() < 1.5;
     }
 
     public boolean isConeClose() {
-        return color.getDistance(DistanceUnit.CM) < coneCloseValue;
+        return sensors.getColorDistance() < coneCloseValue;
     }
 
     public double[] getMotorPowers() {
         return new double[]{slide1.getPower(), slide2.getPower()};
     }
 
+    public boolean isJammed() {
+        return slideCurrent.isJammed();
+    }
+
+    public double getMeanCurrent() {
+        return slideCurrent.getMean();
+    }
+
+    public double getPeakCurrent() {
+        return slideCurrent.getPeak();
+    }
+
     public void setMultiplier(double multiplier) {
         this.multiplier = multiplier;
     }
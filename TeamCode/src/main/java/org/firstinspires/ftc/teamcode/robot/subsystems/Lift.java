@@ -3,30 +3,29 @@ package org.firstinspires.ftc.teamcode.robot.subsystems;
 import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.control.PIDCoefficients;
 import com.arcrobotics.ftclib.command.SubsystemBase;
-import com.arcrobotics.ftclib.controller.wpilibcontroller.ProfiledPIDController;
-import com.arcrobotics.ftclib.trajectory.TrapezoidProfile;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.Servo;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.Telemetry;
-import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.CachingMotor;
+import org.firstinspires.ftc.teamcode.robot.hardware.CachingServo;
+import org.firstinspires.ftc.teamcode.robot.hardware.CurrentMonitor;
 import org.firstinspires.ftc.teamcode.robot.hardware.ProfiledServo;
 import org.firstinspires.ftc.teamcode.robot.hardware.ProfiledServoPair;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LoopProfiler;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
 import org.firstinspires.ftc.teamcode.utils.MotionConstraint;
 
 @Config
 public class Lift extends SubsystemBase {
     // Config parameters
-    public static TrapezoidProfile.Constraints liftConstraints = new TrapezoidProfile.Constraints(2500, 2500);
+    public static MotionConstraint liftConstraints = new MotionConstraint(2500, 2500, 2500, 25000);
     public static PIDCoefficients liftCoefficients = new PIDCoefficients(0.005, 0, 0);
-    public static ProfiledPIDController liftController = new ProfiledPIDController(
-            liftCoefficients.kP,
-            liftCoefficients.kI,
-            liftCoefficients.kD,
-            liftConstraints
-    );
     public static int liftLow = 625;
     public static int liftMid = 1250;
     public static int liftHigh = 1875;
@@ -47,6 +46,17 @@ public class Lift extends SubsystemBase {
     public static double depositThreshold = 0.75;
     public static double jamThreshold = 10;
 
+    private static final int PERIODIC = LoopProfiler.section("lift");
+
+    private static final int LIFT1_POSITION = FlightRecorder.field("lift1 position");
+    private static final int LIFT2_POSITION = FlightRecorder.field("lift2 position");
+    private static final int LIFT1_CURRENT = FlightRecorder.field("lift1 current");
+    private static final int LIFT1_POWER = FlightRecorder.field("lift1 power");
+    private static final int LIFT2_POWER = FlightRecorder.field("lift2 power");
+    private static final int LIFT_STATE = FlightRecorder.field("lift state");
+
+    private static final int JAMS = Metrics.counter("lift", "jams");
+
     private int rotationHeight = rotationLow;
 
     private final Telemetry telemetry;
@@ -56,6 +66,16 @@ public class Lift extends SubsystemBase {
     private final ProfiledServoPair yawArm;
     private final Servo grabber;
     private final ProfiledServo yawArmExtension;
+    private final CurrentMonitor liftCurrent;
+
+    private final LiftController controller;
+
+    // targets are only handed to the axes when the planner says so
+    private final LiftPlanner planner = new LiftPlanner();
+    private int plannedPosition = -1;
+    private double plannedYawArm = Double.NaN;
+    private double plannedExtension = Double.NaN;
+    private double yawArmTarget;
 
     private int targetPosition = 0;
     private int previousTargetPosition = 0;
@@ -80,8 +100,7 @@ public class Lift extends SubsystemBase {
 
     private enum GrabberState {
         HOLD,
-        RELEASE,
-        DEPOSITING
+        RELEASE
     }
 
     private GrabberState grabberState = GrabberState.HOLD;
@@ -93,13 +112,20 @@ public class Lift extends SubsystemBase {
 
     private YawArmState yawArmState = YawArmState.RETRACTED;
 
-    private final ElapsedTime grabTimer = new ElapsedTime();
+    private final ElapsedTime periodicTimer = new Clock.Timer();
 
     public Lift(HardwareMap hardwareMap, Telemetry multipleTelemetry) {
+        this(hardwareMap, multipleTelemetry, null);
+    }
+
+    /**
+     * @param batteryMonitor if not null, the slide output is scaled so it behaves the same at any battery voltage
+     */
+    public Lift(HardwareMap hardwareMap, Telemetry multipleTelemetry, BatteryMonitor batteryMonitor) {
         telemetry = multipleTelemetry;
 
-        lift1 = hardwareMap.get(DcMotorEx.class, "lift1");
-        lift2 = hardwareMap.get(DcMotorEx.class, "lift2");
+        lift1 = new CachingMotor(hardwareMap.get(DcMotorEx.class, "lift1"));
+        lift2 = new CachingMotor(hardwareMap.get(DcMotorEx.class, "lift2"));
         yawArm = new ProfiledServoPair(
                 hardwareMap,
                 "yaw1",
@@ -107,8 +133,9 @@ public class Lift extends SubsystemBase {
                 new MotionConstraint(6, 8, 6),
                 (0.0037037 * -45) + 0.33333
         );
+        yawArmTarget = (0.0037037 * -45) + 0.33333;
 
-        grabber = hardwareMap.get(Servo.class, "grab");
+        grabber = new CachingServo(hardwareMap.get(Servo.class, "grab"));
         grabber.setPosition(grabPos);
 
         yawArmExtension = new ProfiledServo(
@@ -118,6 +145,9 @@ public class Lift extends SubsystemBase {
                 yawArmRetracted
         );
 
+        liftCurrent = new CurrentMonitor(lift1);
+        controller = new LiftController(lift1, lift2, liftConstraints, liftCoefficients, batteryMonitor);
+
         lift1.setZeroPowerBehavior(DcMotorEx.ZeroPowerBehavior.BRAKE);
         lift1.setMode(DcMotorEx.RunMode.STOP_AND_RESET_ENCODER);
         lift1.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
@@ -126,7 +156,13 @@ public class Lift extends SubsystemBase {
         lift2.setMode(DcMotorEx.RunMode.RUN_USING_ENCODER);
     }
 
+    /**
+     * A new state starts a new current window, so a jam is only reported for the current move
+     */
     public void setLiftState(LiftState state) {
+        if (state != liftState) {
+            liftCurrent.reset();
+        }
         liftState = state;
     }
 
@@ -158,8 +194,7 @@ public class Lift extends SubsystemBase {
                 angle = -180;
             }
         }
-        double pos = (0.0037037 * angle) + 0.33333;
-        yawArm.setPosition(pos);
+        yawArmTarget = (0.0037037 * angle) + 0.33333;
     }
     public double getYawArmAngle() {
         return currentYawArmAngle;
@@ -177,18 +212,51 @@ public class Lift extends SubsystemBase {
 
     public boolean isBusy() { return Math.abs(targetPosition - lift1.getCurrentPosition()) >= errorTolerance; }
 
-    public boolean isYawArmBusy() { return yawArm.isBusy(); }
+    public boolean isYawArmBusy() { return yawArm.isBusy() || planner.isSwingPending(); }
 
     public void setYawArmExtensionState(YawArmState state) {
         yawArmState = state;
     }
 
     public boolean isJammed() {
-        return lift1.getCurrent(CurrentUnit.AMPS) > jamThreshold;
+        return liftCurrent.isJammed();
     }
 
+    public double getMeanCurrent() { return liftCurrent.getMean(); }
+
+    public double getPeakCurrent() { return liftCurrent.getPeak(); }
+
+    /**
+     * @return seconds the last slide move took to settle within errorTolerance
+     */
+    public double getLastSettleTime() { return controller.getLastSettleTime(); }
+
+    /**
+     * Plans the move to the current targets of every axis
+     */
+    private void planMove(double extensionTarget) {
+        double swingTime = Math.max(yawArm.timeTo(yawArmTarget), yawArmExtension.timeTo(extensionTarget));
+        planner.plan(controller.plan(targetPosition), targetPosition != controller.getTarget(), rotationHeight, swingTime);
+        plannedPosition = targetPosition;
+        plannedYawArm = yawArmTarget;
+        plannedExtension = extensionTarget;
+    }
+
+    /**
+     * Times itself, for callers that don't have the loop's dt
+     */
     @Override
     public void periodic() {
+        periodic(periodicTimer.seconds());
+    }
+
+    /**
+     * @param dt seconds since the last periodic
+     */
+    public void periodic(double dt) {
+        periodicTimer.reset();
+        LoopProfiler.start(PERIODIC);
+
         switch (liftState) {
             case HIGH:
                 targetPosition = liftHigh;
@@ -217,18 +285,14 @@ public class Lift extends SubsystemBase {
             case GOING_UP:
                 targetPosition = hoverPos;
                 grabberState = GrabberState.HOLD;
-                if (!isBusy()) {
-                    setYawArmAngle(yawArmAngle);
-                    setYawArmExtensionState(YawArmState.RETRACTED);
-                }
+                setYawArmAngle(yawArmAngle);
+                setYawArmExtensionState(YawArmState.RETRACTED);
                 break;
             case RETRACT:
                 setYawArmAngle(yawArmAngle);
                 setYawArmExtensionState(YawArmState.RETRACTED);
                 grabberState = GrabberState.HOLD;
-                if (!isYawArmBusy()) {
-                    targetPosition = hoverPos;
-                }
+                targetPosition = hoverPos;
                 break;
             case COLLECT:
                 setYawArmAngle(yawArmAngle);
@@ -240,10 +304,28 @@ public class Lift extends SubsystemBase {
                 break;
         }
 
-        lift1.setPower(liftController.calculate(lift1.getCurrentPosition(), targetPosition));
-        lift2.setPower(liftController.calculate(lift2.getCurrentPosition(), targetPosition));
+        double extensionTarget = yawArmState == YawArmState.EXTENDED ? yawArmExtended : yawArmRetracted;
+        if (targetPosition != plannedPosition || extensionTarget != plannedExtension) {
+            planMove(extensionTarget);
+        } else if (yawArmTarget != plannedYawArm) {
+            // the arm is being steered, which happens every loop while the stick is held, so it only changes where
+            // the arm goes. Replanning would push the release back every loop.
+            plannedYawArm = yawArmTarget;
+        }
+        if (planner.isSlidesDue()) {
+            controller.setTarget(plannedPosition);
+        }
+        if (planner.isSwingDue(lift1.getCurrentPosition() >= rotationHeight)) {
+            yawArm.setPosition(plannedYawArm);
+            yawArmExtension.setPosition(plannedExtension);
+        }
+        controller.update(errorTolerance, dt);
 
+        liftCurrent.update(jamThreshold);
         if (isJammed()) {
+            if (liftState != LiftState.RETRACT) {
+                Metrics.increment(JAMS);
+            }
             setLiftState(LiftState.RETRACT);
         }
 
@@ -252,21 +334,22 @@ public class Lift extends SubsystemBase {
                 grabber.setPosition(grabPos);
                 break;
             case RELEASE:
-                grabber.setPosition(releasePos);
-                break;
-        }
-
-        switch (yawArmState) {
-            case RETRACTED:
-                yawArmExtension.setPosition(yawArmRetracted);
-                break;
-
-            case EXTENDED:
-                yawArmExtension.setPosition(yawArmExtended);
+                if (planner.isReleaseDue()) {
+                    grabber.setPosition(releasePos);
+                }
                 break;
         }
 
         yawArm.periodic();
         yawArmExtension.periodic();
+
+        FlightRecorder.set(LIFT1_POSITION, lift1.getCurrentPosition());
+        FlightRecorder.set(LIFT2_POSITION, lift2.getCurrentPosition());
+        FlightRecorder.set(LIFT1_CURRENT, liftCurrent.getLatest());
+        FlightRecorder.set(LIFT1_POWER, lift1.getPower());
+        FlightRecorder.set(LIFT2_POWER, lift2.getPower());
+        FlightRecorder.set(LIFT_STATE, liftState.ordinal());
+
+        LoopProfiler.end(PERIODIC);
     }
 }
@@ -0,0 +1,169 @@
+package org.firstinspires.ftc.teamcode.robot.subsystems;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.control.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.util.ElapsedTime;
+import com.qualcomm.robotcore.util.Range;
+
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.utils.AsymmetricMotionProfile;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
+import org.firstinspires.ftc.teamcode.utils.MotionConstraint;
+import org.firstinspires.ftc.teamcode.utils.ProfileState;
+
+/**
+ * Drives both slides along one shared profile. Each motor gets the same feedforward, kG to hold the slides up
+ * plus kV and kA on the profile's velocity and acceleration, and its own PID on a cross-coupled error: its
+ * error from the setpoint plus kSync times how far it is ahead of the other slide. The slide that is ahead
+ * backs off and the one behind pushes harder, so they stay together even when one drags.
+ * <p>
+ * The PID integrates over the dt it is given instead of timing itself, so it follows the loop's clock. The
+ * integral starts over with every new target and only grows while the output isn't saturated in the direction the
+ * error pushes, so it can't wind up while the slides fall behind the profile.
+ * <p>
+ * How long every move takes to settle within the tolerance is recorded as the "lift settle" metric.
+ */
+@Config
+public class LiftController {
+    // Config parameters. The feedforward is estimated and should still be tuned on the robot: the old P only
+    // controller (kP 0.005) held the slides within errorTolerance (10 ticks), so kG is at most 0.05, kV is full
+    // power at the 2781 ticks/s free speed of a 435rpm motor and kA is 0.05 power at the default 2500 ticks/s^2.
+    public static double kG = 0.05; // power
+    public static double kV = 0.00036; // power per tick/s
+    public static double kA = 0.00002; // power per tick/s^2
+    public static double kSync = 0.5;
+
+    private static final int SETPOINT = FlightRecorder.field("lift setpoint");
+
+    private static final int SETTLE = Metrics.timer("lift", "settle");
+    private static final int SYNC_ERROR = Metrics.gauge("lift", "sync error");
+
+    private final DcMotorEx lift1;
+    private final DcMotorEx lift2;
+    private final BatteryMonitor batteryMonitor;
+    private final MotionConstraint constraints;
+    private final PIDCoefficients coefficients;
+
+    private double integral1 = 0;
+    private double integral2 = 0;
+    private double lastError1 = Double.NaN;
+    private double lastError2 = Double.NaN;
+
+    private AsymmetricMotionProfile profile = null;
+    private final ProfileState setpoint = new ProfileState();
+    private final ElapsedTime profileTimer = new Clock.Timer();
+    private int target = 0;
+
+    private long moveStart = 0;
+    private boolean settling = false;
+    private double lastSettleTime = 0;
+
+    /**
+     * @param constraints  read every time a profile is made, so they can be changed from the dashboard
+     * @param coefficients read every loop
+     */
+    public LiftController(DcMotorEx lift1, DcMotorEx lift2, MotionConstraint constraints,
+                          PIDCoefficients coefficients, BatteryMonitor batteryMonitor) {
+        this.lift1 = lift1;
+        this.lift2 = lift2;
+        this.constraints = constraints;
+        this.coefficients = coefficients;
+        this.batteryMonitor = batteryMonitor;
+    }
+
+    /**
+     * @return profile to a target, carrying on from the current setpoint and its velocity
+     */
+    public AsymmetricMotionProfile plan(int target) {
+        double position = lift1.getCurrentPosition();
+        double velocity = 0;
+        if (profile != null) {
+            profile.sample(profileTimer.seconds(), setpoint);
+            position = profile.initialPosition + profile.getDirection() * setpoint.x;
+            velocity = profile.getDirection() * setpoint.v;
+        }
+        return AsymmetricMotionProfile.generate(position, target, velocity, constraints);
+    }
+
+    public void setTarget(int target) {
+        if (profile != null && target == this.target) {
+            return;
+        }
+        profile = plan(target);
+        profileTimer.reset();
+        integral1 = 0;
+        integral2 = 0;
+        this.target = target;
+        moveStart = Clock.nanoTime();
+        settling = true;
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Sets the motor powers for the current point of the profile
+     *
+     * @param tolerance how close both slides have to be to the target for the move to count as settled
+     * @param dt        seconds since the last update
+     */
+    public void update(int tolerance, double dt) {
+        if (profile == null) {
+            setTarget(lift1.getCurrentPosition());
+        }
+        profile.sample(profileTimer.seconds(), setpoint);
+        int direction = profile.getDirection();
+        double position = profile.initialPosition + direction * setpoint.x;
+        double feedforward = kG + kV * direction * setpoint.v + kA * direction * setpoint.a;
+
+        int position1 = lift1.getCurrentPosition();
+        int position2 = lift2.getCurrentPosition();
+        double syncError = position1 - position2;
+
+        double error1 = position - (position1 + kSync * syncError);
+        double error2 = position - (position2 - kSync * syncError);
+        double derivative1 = dt > 0 && !Double.isNaN(lastError1) ? (error1 - lastError1) / dt : 0;
+        double derivative2 = dt > 0 && !Double.isNaN(lastError2) ? (error2 - lastError2) / dt : 0;
+        lastError1 = error1;
+        lastError2 = error2;
+
+        double compensation = batteryMonitor == null ? 1 : batteryMonitor.getCompensation();
+        double power1 = (feedforward + coefficients.kP * error1 + coefficients.kI * integral1
+                + coefficients.kD * derivative1) * compensation;
+        double power2 = (feedforward + coefficients.kP * error2 + coefficients.kI * integral2
+                + coefficients.kD * derivative2) * compensation;
+        if (Math.abs(power1) < 1 || Math.signum(power1) != Math.signum(error1)) {
+            integral1 += error1 * dt;
+        }
+        if (Math.abs(power2) < 1 || Math.signum(power2) != Math.signum(error2)) {
+            integral2 += error2 * dt;
+        }
+        lift1.setPower(Range.clip(power1, -1, 1));
+        lift2.setPower(Range.clip(power2, -1, 1));
+
+        if (settling && Math.abs(target - position1) < tolerance && Math.abs(target - position2) < tolerance) {
+            long settleTime = Clock.nanoTime() - moveStart;
+            Metrics.record(SETTLE, settleTime);
+            lastSettleTime = settleTime / 1e9;
+            settling = false;
+        }
+
+        Metrics.set(SYNC_ERROR, Math.abs(syncError));
+        FlightRecorder.set(SETPOINT, position);
+    }
+
+    /**
+     * @return seconds the last move took from setting the target until both slides were within the tolerance
+     */
+    public double getLastSettleTime() {
+        return lastSettleTime;
+    }
+
+    public boolean isSettling() {
+        return settling;
+    }
+}
@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode.robot.subsystems;
+
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.utils.AsymmetricMotionProfile;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+
+/**
+ * Schedules a move of the slides, yaw arm, extension and grabber so the axes overlap as much as the collision
+ * constraints allow, instead of waiting for each other to settle. The yaw arm and extension (the swing) can only
+ * move while the slides are above the rotation height:
+ * <ul>
+ *     <li>Going up through it, the slides start right away and the swing starts when they get there. It also
+ *     waits for the measured slide position, since the slides lag their profile.</li>
+ *     <li>Going down through it, the swing starts right away and the slides are held back just long enough that
+ *     they only get there once the swing is done.</li>
+ *     <li>Otherwise everything starts right away.</li>
+ * </ul>
+ * Opening the grabber waits for the swing, so a cone is never dropped mid-swing.
+ * <p>
+ * Every axis follows its own time-optimal profile, the planner only picks when each one starts.
+ */
+public class LiftPlanner {
+    private final ElapsedTime timer = new Clock.Timer();
+
+    private double slidesStart = 0;
+    private double swingStart = 0;
+    private double swingTime = 0;
+    private boolean swingWaitsForHeight = false;
+    private double duration = 0;
+
+    private boolean swingStarted = true;
+    private double swingStartedAt = 0;
+
+    /**
+     * Plans a new move starting now
+     *
+     * @param slides         what the slides would do if they were given their target now
+     * @param slidesCanWait  false if the slides are already on their way to the target, so they can't be held back
+     * @param rotationHeight lowest slide position the swing can move at
+     * @param swingTime      seconds the yaw arm and extension need to get to their targets, 0 if they don't move
+     */
+    public void plan(AsymmetricMotionProfile slides, boolean slidesCanWait, double rotationHeight, double swingTime) {
+        this.swingTime = swingTime;
+        slidesStart = 0;
+        swingStart = 0;
+        swingWaitsForHeight = false;
+
+        boolean goingUp = slides.initialPosition < rotationHeight && slides.finalPosition >= rotationHeight;
+        boolean goingDown = slides.initialPosition >= rotationHeight && slides.finalPosition < rotationHeight;
+        if (swingTime > 0 && goingUp) {
+            swingStart = slides.getTimeTo(rotationHeight);
+            swingWaitsForHeight = true;
+        } else if (swingTime > 0 && goingDown && slidesCanWait) {
+            slidesStart = Math.max(swingTime - slides.getTimeTo(rotationHeight), 0);
+        }
+
+        duration = Math.max(slidesStart + slides.getProfileDuration(), swingStart + swingTime);
+        swingStarted = false;
+        timer.reset();
+    }
+
+    /**
+     * @return whether the slides should be given their target
+     */
+    public boolean isSlidesDue() {
+        return timer.seconds() >= slidesStart;
+    }
+
+    /**
+     * Once this is true it stays true until the next plan, even if the slides dip back down
+     *
+     * @return whether the yaw arm and extension should be given their targets
+     */
+    public boolean isSwingDue(boolean aboveRotationHeight) {
+        if (!swingStarted && timer.seconds() >= swingStart && (!swingWaitsForHeight || aboveRotationHeight)) {
+            swingStarted = true;
+            swingStartedAt = timer.seconds();
+        }
+        return swingStarted;
+    }
+
+    /**
+     * @return whether the swing has been held back and hasn't started yet
+     */
+    public boolean isSwingPending() {
+        return !swingStarted && swingTime > 0;
+    }
+
+    /**
+     * @return whether the grabber can be opened
+     */
+    public boolean isReleaseDue() {
+        return swingStarted && timer.seconds() >= swingStartedAt + swingTime;
+    }
+
+    /**
+     * @return planned seconds from the start of the move until every axis is there
+     */
+    public double getDuration() {
+        return duration;
+    }
+}
@@ -1,10 +1,16 @@
 package org.firstinspires.ftc.teamcode.robot.subsystems;
 
 import com.acmerobotics.dashboard.config.Config;
-import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
+import org.firstinspires.ftc.teamcode.utils.Clock;
+import org.firstinspires.ftc.teamcode.utils.LazyTelemetry;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
+
 @Config
 public class ScoringMech {
     private enum ScoringState {
@@ -26,7 +32,13 @@ public class ScoringMech {
         RESET
     }
 
+    private static final int TRANSITIONS = Metrics.counter("scoring", "transitions");
+    private static final int DEPOSITS = Metrics.counter("scoring", "deposits");
+    private static final int CYCLES = Metrics.timer("scoring", "cycles");
+
     private ScoringState scoringState = ScoringState.RESET;
+    private ScoringState lastScoringState = ScoringState.RESET;
+    private long lastDeposit = -1;
 
     private Lift.LiftState previousLiftState = Lift.LiftState.HIGH;
 
@@ -37,24 +49,32 @@ public class ScoringMech {
     private Intake intake;
     private Rumbler rumbler;
 
-    private MultipleTelemetry telemetry;
+    private final LazyTelemetry telemetry;
 
-    private final ElapsedTime eTime = new ElapsedTime(ElapsedTime.Resolution.SECONDS);
+    private final ElapsedTime eTime = new Clock.Timer(ElapsedTime.Resolution.SECONDS);
 
     public static int v4bRetractTime = 1000;
 
     private boolean previousV4bExtendButton = false;
     private double previousYawArmAngle = 0;
 
-    public ScoringMech(HardwareMap hardwareMap, Rumbler rumbler, MultipleTelemetry multipleTelemetry) {
-        telemetry = multipleTelemetry;
+    public ScoringMech(HardwareMap hardwareMap, Rumbler rumbler, Telemetry multipleTelemetry, SensorSnapshot sensors) {
+        this(hardwareMap, rumbler, multipleTelemetry, sensors, null);
+    }
+
+    public ScoringMech(HardwareMap hardwareMap, Rumbler rumbler, Telemetry multipleTelemetry, SensorSnapshot sensors,
+                       BatteryMonitor batteryMonitor) {
+        telemetry = LazyTelemetry.wrap(multipleTelemetry);
         this.rumbler = rumbler;
 
-        lift = new Lift(hardwareMap, multipleTelemetry);
-        intake = new Intake(hardwareMap, multipleTelemetry);
+        lift = new Lift(hardwareMap, multipleTelemetry, batteryMonitor);
+        intake = new Intake(hardwareMap, multipleTelemetry, sensors, batteryMonitor);
     }
 
-    public void score(boolean v4bExtendButton, boolean grabButton, boolean liftButtonHigh, boolean liftButtonMid, boolean liftButtonLow,
+    /**
+     * @param dt seconds since the last call, passed on to the lift
+     */
+    public void score(double dt, boolean v4bExtendButton, boolean grabButton, boolean liftButtonHigh, boolean liftButtonMid, boolean liftButtonLow,
                       double depositButton, double yawArmY, double yawArmX, boolean cancelAutomation,
                       boolean yawArm0, boolean yawArm90, boolean yawArm180, boolean yawArm270, boolean skipToCollecting) {
         telemetry.addData("Timer", eTime.time());
@@ -161,7 +181,9 @@ public class ScoringMech {
 
             case LOWERED:
                 if (/*!intake.isBusy() && */!intake.isV4BBusy()) {
+                    // the lift holds the swing back until the slides are high enough
                     lift.setLiftState(previousLiftState);
+                    lift.setYawArmAngle(previousYawArmAngle);
                     rumbler.rumble(1000);
                     scoringState = ScoringState.LIFTING;
                 }
@@ -170,7 +192,6 @@ public class ScoringMech {
             case LIFTING:
                 if (lift.canControlArm()) {
                     controllingArm = true;
-                    lift.setYawArmAngle(previousYawArmAngle);
                     lift.setYawArmExtensionState(Lift.YawArmState.EXTENDED);
                     scoringState = ScoringState.CONTROLLING_ARM;
                 }
@@ -248,7 +269,7 @@ public class ScoringMech {
             previousLiftState = lift.getLiftState();
         }
 
-        lift.periodic();
+        lift.periodic(dt);
         intake.periodic();
 
         if (cancelAutomation) {
@@ -259,6 +280,20 @@ public class ScoringMech {
             scoringState = ScoringState.COLLECTING_1;
         }
 
+        if (scoringState != lastScoringState) {
+            Metrics.increment(TRANSITIONS);
+            if (scoringState == ScoringState.DEPOSITING) {
+                // a cycle is from one deposit to the next
+                long now = Clock.nanoTime();
+                Metrics.increment(DEPOSITS);
+                if (lastDeposit >= 0) {
+                    Metrics.record(CYCLES, now - lastDeposit);
+                }
+                lastDeposit = now;
+            }
+            lastScoringState = scoringState;
+        }
+
         previousV4bExtendButton = v4bExtendButton;
     }
 
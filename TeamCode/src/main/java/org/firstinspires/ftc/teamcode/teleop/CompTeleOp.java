@@ -1,91 +1,202 @@
 package org.firstinspires.ftc.teamcode.teleop;
 
 import com.acmerobotics.dashboard.FtcDashboard;
-import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.acmerobotics.dashboard.config.Config;
 import com.outoftheboxrobotics.photoncore.PhotonCore;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.Gamepad;
 
+import org.firstinspires.ftc.teamcode.robot.hardware.ActuatorCache;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.HardwareHub;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorPoller;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Drivetrain;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Rumbler;
 import org.firstinspires.ftc.teamcode.robot.subsystems.ScoringMech;
+import org.firstinspires.ftc.teamcode.utils.Clock;
 import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.FlightRecorder;
+import org.firstinspires.ftc.teamcode.utils.LazyTelemetry;
+import org.firstinspires.ftc.teamcode.utils.LoopProfiler;
+import org.firstinspires.ftc.teamcode.utils.LoopRunner;
+import org.firstinspires.ftc.teamcode.utils.Metrics;
+import org.firstinspires.ftc.teamcode.utils.MultiRateExecutor;
 
+@Config
 @TeleOp(group="a")
 public class CompTeleOp extends LinearOpMode {
+    // Config parameters, in Hz. Only read at start, the loop runs at the fastest one. Scoring can't go above 50
+    // since the intake's profiled controller assumes it is called every 20ms.
+    public static double drivetrainRate = 100;
+    public static double scoringRate = 50;
+    public static double telemetryRate = 10;
+
+    private static final int SENSORS = LoopProfiler.section("sensors");
+    private static final int IMU_SAMPLE_RATE = Dashboard.register("imu sample rate", 1);
+    private static final int COLOR_SAMPLE_RATE = Dashboard.register("color sample rate", 1);
+    private static final int IMU_STALE = Dashboard.register("imu stale");
+    private static final int BATTERY_VOLTAGE = Dashboard.register("battery voltage", 0.01);
+
     Drivetrain dt;
     ScoringMech sm;
     Rumbler rb;
+    HardwareHub hub;
+    SensorPoller sensorPoller;
+    SensorSnapshot sensors;
+    BatteryMonitor batteryMonitor;
+    LoopRunner loopRunner;
+    MultiRateExecutor executor;
 
     @Override
     public void runOpMode() throws InterruptedException {
+        // nothing carries over from the last OpMode: a replay that didn't finish can leave the clock frozen,
+        // the dashboard would keep the auto's path and values, and the metrics would add up across runs
+        Clock.useSystemTime();
+        Dashboard.reset();
+        Metrics.reset();
         PhotonCore.enable();
 
-        MultipleTelemetry multipleTelemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
+        // formats and sends telemetry off the loop thread, only for the frames that get transmitted
+        LazyTelemetry lazyTelemetry = new LazyTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
         rb = new Rumbler(gamepad1);
-        dt = new Drivetrain(hardwareMap, multipleTelemetry);
-        sm = new ScoringMech(hardwareMap, rb, multipleTelemetry);
-
-        waitForStart();
-
-        while (opModeIsActive() && !isStopRequested()) {
-            if (sm.isControllingArm()) {
-                dt.driveRobot(
-                        gamepad1.left_stick_y,
-                        gamepad1.left_stick_x,
-                        gamepad1.right_stick_x,
-                        gamepad1.left_bumper,
-                        gamepad2.dpad_up,
-                        gamepad2.dpad_left,
-                        gamepad2.dpad_down,
-                        gamepad2.dpad_right
-                );
-                sm.score(
-                        gamepad1.left_trigger > 0,
-                        gamepad1.right_bumper,
-                        gamepad1.y,
-                        gamepad1.b,
-                        gamepad1.a,
-                        gamepad1.right_trigger,
-                        gamepad2.right_stick_y,
-                        gamepad2.right_stick_x,
-                        gamepad1.back,
-                        gamepad1.dpad_down,
-                        gamepad1.dpad_right,
-                        gamepad1.dpad_up,
-                        gamepad1.dpad_left,
-                        gamepad2.a
-                );
-            } else {
-                dt.driveRobot(
-                        gamepad1.left_stick_y,
-                        gamepad1.left_stick_x,
-                        gamepad1.right_stick_x,
-                        gamepad1.left_bumper,
-                        gamepad1.dpad_up,
-                        gamepad1.dpad_left,
-                        gamepad1.dpad_down,
-                        gamepad1.dpad_right
-                );
-                sm.score(
-                        gamepad1.left_trigger > 0,
-                        gamepad1.right_bumper,
-                        gamepad1.y,
-                        gamepad1.b,
-                        gamepad1.a,
-                        gamepad1.right_trigger,
-                        gamepad2.right_stick_y,
-                        gamepad2.right_stick_x,
-                        gamepad1.back,
-                        gamepad2.dpad_down,
-                        gamepad2.dpad_right,
-                        gamepad2.dpad_up,
-                        gamepad2.dpad_left,
-                        gamepad2.a
-                );
+        hub = new HardwareHub(hardwareMap);
+        batteryMonitor = new BatteryMonitor(hardwareMap);
+        sensorPoller = new SensorPoller(hardwareMap);
+        sensors = new SensorSnapshot(sensorPoller);
+        dt = new Drivetrain(hardwareMap, lazyTelemetry, sensors);
+        sm = new ScoringMech(hardwareMap, rb, lazyTelemetry, sensors, batteryMonitor);
+        sensorPoller.start();
+        try {
+            double fastestRate = Math.max(drivetrainRate, Math.max(scoringRate, telemetryRate));
+            loopRunner = fastestRate > 0 ? new LoopRunner(1 / fastestRate) : new LoopRunner();
+            executor = new MultiRateExecutor(loopRunner);
+            executor.register("drivetrain", drivetrainRate, this::drive);
+            executor.register("scoring", scoringRate, this::score);
+            executor.register("telemetry", telemetryRate, this::sendTelemetry);
+
+            FlightRecorder.start("CompTeleOp");
+
+            waitForStart();
+
+            LoopProfiler.reset();
+            loopRunner.start();
+
+            while (opModeIsActive() && !isStopRequested()) {
+                double elapsed = loopRunner.sync();
+
+                LoopProfiler.start(SENSORS);
+                hub.update();
+                sensors.update();
+                LoopProfiler.end(SENSORS);
+
+                executor.run(elapsed);
+                ActuatorCache.periodic();
+                Dashboard.timeLoop();
+
+                FlightRecorder.recordGamepads(gamepad1, gamepad2);
+                Metrics.periodic();
+                FlightRecorder.commit();
+
+                LoopProfiler.periodic();
             }
-            
-            Dashboard.periodic();
+        } finally {
+            sensorPoller.stop();
+            lazyTelemetry.close();
+            FlightRecorder.stop();
         }
+
+        LoopProfiler.dump("CompTeleOp");
+        Metrics.dump("CompTeleOp");
+    }
+
+    private void drive(double elapsed) {
+        drive(elapsed, dt, sm, gamepad1, gamepad2);
+    }
+
+    private void score(double elapsed) {
+        score(elapsed, sm, gamepad1, gamepad2);
+    }
+
+    /**
+     * Driver controls for the drivetrain. Static so a log replay drives the subsystems exactly like the OpMode.
+     *
+     * @param elapsed seconds since the last call
+     */
+    public static void drive(double elapsed, Drivetrain dt, ScoringMech sm, Gamepad gamepad1, Gamepad gamepad2) {
+        if (sm.isControllingArm()) {
+            dt.driveRobot(
+                    elapsed,
+                    gamepad1.left_stick_y,
+                    gamepad1.left_stick_x,
+                    gamepad1.right_stick_x,
+                    gamepad1.left_bumper,
+                    gamepad2.dpad_up,
+                    gamepad2.dpad_left,
+                    gamepad2.dpad_down,
+                    gamepad2.dpad_right
+            );
+        } else {
+            dt.driveRobot(
+                    elapsed,
+                    gamepad1.left_stick_y,
+                    gamepad1.left_stick_x,
+                    gamepad1.right_stick_x,
+                    gamepad1.left_bumper,
+                    gamepad1.dpad_up,
+                    gamepad1.dpad_left,
+                    gamepad1.dpad_down,
+                    gamepad1.dpad_right
+            );
+        }
+    }
+
+    public static void score(double elapsed, ScoringMech sm, Gamepad gamepad1, Gamepad gamepad2) {
+        if (sm.isControllingArm()) {
+            sm.score(
+                    elapsed,
+                    gamepad1.left_trigger > 0,
+                    gamepad1.right_bumper,
+                    gamepad1.y,
+                    gamepad1.b,
+                    gamepad1.a,
+                    gamepad1.right_trigger,
+                    gamepad2.right_stick_y,
+                    gamepad2.right_stick_x,
+                    gamepad1.back,
+                    gamepad1.dpad_down,
+                    gamepad1.dpad_right,
+                    gamepad1.dpad_up,
+                    gamepad1.dpad_left,
+                    gamepad2.a
+            );
+        } else {
+            sm.score(
+                    elapsed,
+                    gamepad1.left_trigger > 0,
+                    gamepad1.right_bumper,
+                    gamepad1.y,
+                    gamepad1.b,
+                    gamepad1.a,
+                    gamepad1.right_trigger,
+                    gamepad2.right_stick_y,
+                    gamepad2.right_stick_x,
+                    gamepad1.back,
+                    gamepad2.dpad_down,
+                    gamepad2.dpad_right,
+                    gamepad2.dpad_up,
+                    gamepad2.dpad_left,
+                    gamepad2.a
+            );
+        }
+    }
+
+    private void sendTelemetry() {
+        Dashboard.set(IMU_SAMPLE_RATE, sensorPoller.getImuSampleRate());
+        Dashboard.set(COLOR_SAMPLE_RATE, sensorPoller.getColorSampleRate());
+        Dashboard.set(IMU_STALE, sensors.isImuStale());
+        Dashboard.set(BATTERY_VOLTAGE, batteryMonitor.getVoltage());
+        Dashboard.publish();
     }
 }
@@ -19,6 +19,11 @@ public class AutoGrabTestOpMode extends LinearOpMode
     public static double openPosition = 0.45;
     public static double distance = 2;
 
+    private static final int DISTANCE = Dashboard.register("Distance");
+    private static final int RED = Dashboard.register("Red");
+    private static final int GREEN = Dashboard.register("Green");
+    private static final int BLUE = Dashboard.register("Blue");
+
     private Servo claw;
     private RevColorSensorV3 colorSensor;
 
@@ -26,6 +31,8 @@ public class AutoGrabTestOpMode extends LinearOpMode
 
     @Override
     public void runOpMode() {
+        Dashboard.reset();
+
         telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
 
         claw = hardwareMap.get(Servo.class, "s1");
@@ -49,10 +56,10 @@ public class AutoGrabTestOpMode extends LinearOpMode
                 open();
             }
 
-            Dashboard.packet.put("Distance", colorSensor.getDistance(DistanceUnit.CM));
-            Dashboard.packet.put("Red", colorSensor.getNormalizedColors().red);
-            Dashboard.packet.put("Green", colorSensor.getNormalizedColors().green);
-            Dashboard.packet.put("Blue", colorSensor.getNormalizedColors().blue);
+            Dashboard.set(DISTANCE, colorSensor.getDistance(DistanceUnit.CM));
+            Dashboard.set(RED, colorSensor.getNormalizedColors().red);
+            Dashboard.set(GREEN, colorSensor.getNormalizedColors().green);
+            Dashboard.set(BLUE, colorSensor.getNormalizedColors().blue);
 
             telemetry.addData("Distance", colorSensor.getDistance(DistanceUnit.CM));
             telemetry.addData("Red", colorSensor.getNormalizedColors().red);
@@ -0,0 +1,65 @@
+package org.firstinspires.ftc.teamcode.tests;
+
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LoggingUtil;
+import org.firstinspires.ftc.teamcode.utils.FlightLog;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts the newest flight log to CSV and columnar files next to it, so it can be pulled and opened without
+ * running the decoder on a laptop.
+ */
+@TeleOp(group="test")
+public class FlightLogExportOpMode extends LinearOpMode {
+    @Override
+    public void runOpMode() throws InterruptedException {
+        File newest = null;
+        File[] files = LoggingUtil.ROAD_RUNNER_FOLDER.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().contains("-Flight-") && file.getName().endsWith(".bin")
+                        && (newest == null || file.lastModified() > newest.lastModified())) {
+                    newest = file;
+                }
+            }
+        }
+
+        if (newest == null) {
+            telemetry.addLine("No flight logs found");
+            telemetry.update();
+            waitForStart();
+            return;
+        }
+
+        telemetry.addLine("Press start to export " + newest.getName());
+        telemetry.update();
+
+        waitForStart();
+
+        String base = newest.getName().replaceFirst("\\.bin$", "");
+        File csv = LoggingUtil.getLogFile(base + ".csv");
+        File columns = LoggingUtil.getLogFile(base + ".cols");
+        try {
+            FlightLog log = FlightLog.read(newest);
+            log.writeCsv(csv);
+            log.writeColumns(columns);
+            telemetry.addData("records", log.getRecordCount());
+            telemetry.addData("overwritten", log.getDroppedRecords());
+            telemetry.addLine("Wrote " + base + ".csv");
+        } catch (IOException e) {
+            telemetry.addLine("Export failed: " + e.getMessage());
+        } finally {
+            LoggingUtil.release(csv);
+            LoggingUtil.release(columns);
+        }
+        telemetry.update();
+
+        while (opModeIsActive()) {
+            idle();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Intake;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
 
@@ -12,16 +13,20 @@ import org.firstinspires.ftc.teamcode.robot.subsystems.Lift;
 public class IntakeTunerOpMode extends LinearOpMode {
     MultipleTelemetry multipleTelemetry;
     Intake intake;
+    SensorSnapshot sensors;
     Lift lift; //only here to make sure it is out of the way when moving intake
 
     @Override
     public void runOpMode() throws InterruptedException {
         multipleTelemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
-        intake = new Intake(hardwareMap, multipleTelemetry);
+        sensors = new SensorSnapshot(hardwareMap);
+        intake = new Intake(hardwareMap, multipleTelemetry, sensors);
         lift = new Lift(hardwareMap, multipleTelemetry);
 
         waitForStart();
         while (opModeIsActive() && !isStopRequested()) {
+            sensors.update();
+
             intake.setV4bPos(0.9);
 
             if (!lift.isBusy()) {
@@ -46,6 +51,8 @@ public class IntakeTunerOpMode extends LinearOpMode {
             double[] motorPowers = intake.getMotorPowers();
             multipleTelemetry.addData("intake1 power", motorPowers[0]);
             multipleTelemetry.addData("intake2 power", motorPowers[1]);
+            multipleTelemetry.addData("isJammed", intake.isJammed());
+            multipleTelemetry.addData("mean current", intake.getMeanCurrent());
 
             multipleTelemetry.update();
         }
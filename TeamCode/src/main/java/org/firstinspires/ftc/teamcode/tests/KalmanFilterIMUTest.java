@@ -4,20 +4,29 @@ import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Drivetrain;
 import org.firstinspires.ftc.teamcode.utils.Dashboard;
 import org.firstinspires.ftc.teamcode.utils.KalmanFilter;
+import org.firstinspires.ftc.teamcode.utils.LoopRunner;
 
 import java.util.Arrays;
 
 @TeleOp(group="test")
 public class KalmanFilterIMUTest extends LinearOpMode {
+    private static final int IMU_READING = Dashboard.register("IMU Reading");
+    private static final int KALMAN_READING = Dashboard.register("Kalman Reading");
+    private static final int KALMAN_X = Dashboard.register("Kalman X");
+
     BNO055IMU imu;
     Drivetrain dt;
 
     @Override
     public void runOpMode() throws InterruptedException {
-        dt = new Drivetrain(hardwareMap, telemetry);
+        Dashboard.reset();
+
+        SensorSnapshot sensors = new SensorSnapshot(hardwareMap);
+        dt = new Drivetrain(hardwareMap, telemetry, sensors);
 
         imu = hardwareMap.get(BNO055IMU.class, "imu");
         BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
@@ -28,8 +37,14 @@ public class KalmanFilterIMUTest extends LinearOpMode {
 
         waitForStart();
 
+        LoopRunner loopRunner = new LoopRunner();
+        loopRunner.start();
+
         while (opModeIsActive()) {
+            double elapsed = loopRunner.sync();
+            sensors.update();
             dt.driveRobot(
+                    elapsed,
                     gamepad1.left_stick_y,
                     gamepad1.left_stick_x,
                     gamepad1.right_stick_x,
@@ -41,12 +56,12 @@ public class KalmanFilterIMUTest extends LinearOpMode {
             );
 
             double imuReading = imu.getAngularOrientation().firstAngle;
-            Dashboard.packet.put("IMU Reading", imuReading);
-            Dashboard.packet.put("Kalman Reading", filter.estimate(imuReading));
-            Dashboard.packet.put("Kalman X", filter.getX());
+            Dashboard.set(IMU_READING, imuReading);
+            Dashboard.set(KALMAN_READING, filter.estimate(imuReading));
+            Dashboard.set(KALMAN_X, filter.getX());
 
-            Dashboard.packet.addLine("");
-            Dashboard.packet.addLine(Arrays.toString(filter.estimates.toArray()));
+            Dashboard.addLine("");
+            Dashboard.addLine(Arrays.toString(filter.estimates.toArray()));
 
             Dashboard.periodic();
         }
@@ -5,6 +5,7 @@ import com.qualcomm.hardware.bosch.BNO055IMU;
 import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
 import org.firstinspires.ftc.teamcode.robot.subsystems.Drivetrain;
 import org.firstinspires.ftc.teamcode.utils.Dashboard;
 import org.firstinspires.ftc.teamcode.utils.KalmanFilter;
@@ -18,12 +19,18 @@ public class KalmanFilterTest extends LinearOpMode {
     public static double Q = 0.5;
     public static double R = 2;
 
+    private static final int SENSOR_READING = Dashboard.register("Sensor Reading");
+    private static final int KALMAN_READING = Dashboard.register("Kalman Reading");
+
     BNO055IMU imu;
     Drivetrain dt;
 
     @Override
     public void runOpMode() throws InterruptedException {
-        dt = new Drivetrain(hardwareMap, telemetry);
+        Dashboard.reset();
+
+        SensorSnapshot sensors = new SensorSnapshot(hardwareMap);
+        dt = new Drivetrain(hardwareMap, telemetry, sensors);
 
         imu = hardwareMap.get(BNO055IMU.class, "imu");
         BNO055IMU.Parameters parameters = new BNO055IMU.Parameters();
@@ -37,14 +44,15 @@ public class KalmanFilterTest extends LinearOpMode {
         waitForStart();
 
         while (opModeIsActive()) {
+            sensors.update();
 
             Random random = new Random();
             sensorReading = (random.nextDouble() - 0.5) * 0.1;
-            Dashboard.packet.put("Sensor Reading", sensorReading);
-            Dashboard.packet.put("Kalman Reading", filter.estimate(sensorReading));
+            Dashboard.set(SENSOR_READING, sensorReading);
+            Dashboard.set(KALMAN_READING, filter.estimate(sensorReading));
 
-            Dashboard.packet.addLine("");
-            Dashboard.packet.addLine(Arrays.toString(filter.estimates.toArray()));
+            Dashboard.addLine("");
+            Dashboard.addLine(Arrays.toString(filter.estimates.toArray()));
 
             Dashboard.periodic();
 
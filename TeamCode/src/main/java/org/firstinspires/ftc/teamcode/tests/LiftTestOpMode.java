@@ -38,6 +38,9 @@ public class LiftTestOpMode extends LinearOpMode {
             multipleTelemetry.addData("lift1 power", motorPowers[0]);
             multipleTelemetry.addData("lift2 power", motorPowers[1]);
             multipleTelemetry.addData("isJammed", lift.isJammed());
+            multipleTelemetry.addData("mean current", lift.getMeanCurrent());
+            multipleTelemetry.addData("peak current", lift.getPeakCurrent());
+            multipleTelemetry.addData("last settle time", lift.getLastSettleTime());
 
             multipleTelemetry.update();
         }
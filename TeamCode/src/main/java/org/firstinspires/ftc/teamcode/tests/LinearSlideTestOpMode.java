@@ -15,12 +15,17 @@ import org.firstinspires.ftc.teamcode.utils.Dashboard;
 @Config
 public class LinearSlideTestOpMode extends LinearOpMode
 {
+    private static final int LIFT1_CURRENT = Dashboard.register("Current lift 1");
+    private static final int LIFT2_CURRENT = Dashboard.register("Current lift 2");
+
     private DcMotorEx lift1, lift2;
     
     private double slidePower = 0;
 
     @Override
     public void runOpMode() {
+        Dashboard.reset();
+
         telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
 
         lift1 = hardwareMap.get(DcMotorEx.class, "lift1");
@@ -51,8 +56,8 @@ public class LinearSlideTestOpMode extends LinearOpMode
             telemetry.addData("lift2 position", lift2.getCurrentPosition());
             telemetry.update();
 
-            Dashboard.put("Current lift 1", lift1.getCurrent(CurrentUnit.AMPS));
-            Dashboard.put("Current lift 2", lift2.getCurrent(CurrentUnit.AMPS));
+            Dashboard.set(LIFT1_CURRENT, lift1.getCurrent(CurrentUnit.AMPS));
+            Dashboard.set(LIFT2_CURRENT, lift2.getCurrent(CurrentUnit.AMPS));
             Dashboard.periodic();
         }
     }
@@ -0,0 +1,173 @@
+package org.firstinspires.ftc.teamcode.tests;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LoggingUtil;
+import org.firstinspires.ftc.teamcode.robot.hardware.ActuatorCache;
+import org.firstinspires.ftc.teamcode.robot.hardware.BatteryMonitor;
+import org.firstinspires.ftc.teamcode.robot.hardware.HardwareHub;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
+import org.firstinspires.ftc.teamcode.robot.hardware.sim.LogReplay;
+import org.firstinspires.ftc.teamcode.robot.hardware.sim.SimHardwareMap;
+import org.firstinspires.ftc.teamcode.robot.subsystems.Drivetrain;
+import org.firstinspires.ftc.teamcode.robot.subsystems.Rumbler;
+import org.firstinspires.ftc.teamcode.robot.subsystems.ScoringMech;
+import org.firstinspires.ftc.teamcode.teleop.CompTeleOp;
+import org.firstinspires.ftc.teamcode.utils.FlightLog;
+import org.firstinspires.ftc.teamcode.utils.LogHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Replays a CompTeleOp flight log through the drivetrain and scoring mechanism on simulated hardware and reports
+ * which outputs came out different from the match, and what the loop costs without any hardware calls.
+ * Useful for checking that a change to a subsystem doesn't change what it does with the same inputs. Can also be
+ * run off the robot through {@link #main(String[])}.
+ */
+@Config
+@TeleOp(group="test")
+public class LogReplayOpMode extends LinearOpMode {
+    public static String logFile = ""; // name in the log folder, empty for the newest CompTeleOp log
+    public static double powerTolerance = 1e-3;
+
+    // built in the replay's setup, so they are fields for the step to get at
+    private static class Subsystems {
+        HardwareHub hub;
+        SensorSnapshot sensors;
+        Drivetrain dt;
+        ScoringMech sm;
+    }
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        File file = logFile.isEmpty()
+                ? findNewest()
+                : new File(LoggingUtil.ROAD_RUNNER_FOLDER, logFile);
+        if (file == null || !file.exists()) {
+            telemetry.addLine("No CompTeleOp flight log found");
+            telemetry.update();
+            waitForStart();
+            return;
+        }
+
+        FlightLog log;
+        try {
+            log = FlightLog.read(file);
+        } catch (IOException e) {
+            telemetry.addLine("Couldn't read " + file.getName() + ": " + e.getMessage());
+            telemetry.update();
+            waitForStart();
+            return;
+        }
+
+        telemetry.addLine("Press start to replay " + file.getName() + " (" + log.getRecordCount() + " records)");
+        telemetry.update();
+
+        waitForStart();
+
+        for (String line : replay(log, powerTolerance, telemetry, this::opModeIsActive)) {
+            telemetry.addLine(line);
+        }
+        telemetry.update();
+
+        while (opModeIsActive()) {
+            idle();
+        }
+    }
+
+    /**
+     * Replays the logs given on the command line on a plain JVM, e.g. from the IDE with the SDK jars on the
+     * classpath
+     */
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            FlightLog log = FlightLog.read(new File(arg));
+            System.out.println(arg + ":");
+            for (String line : replay(log, powerTolerance, new MultipleTelemetry(), () -> true)) {
+                System.out.println("  " + line);
+            }
+        }
+    }
+
+    /**
+     * @param tolerance largest difference in a motor power that isn't counted as a mismatch
+     * @param telemetry what the subsystems write their telemetry to, it is cleared every loop
+     * @param active    checked before every record, the replay stops early once it is false
+     * @return the results, one line each
+     */
+    public static List<String> replay(FlightLog log, double tolerance, Telemetry telemetry, BooleanSupplier active) {
+        SimHardwareMap sim = SimHardwareMap.robot();
+        LogReplay replay = new LogReplay(log, sim);
+        replay.compareOutputs(tolerance);
+
+        MultipleTelemetry multipleTelemetry = new MultipleTelemetry(telemetry);
+        Gamepad gamepad1 = replay.getGamepad1();
+        Gamepad gamepad2 = replay.getGamepad2();
+        Subsystems s = new Subsystems();
+
+        long start = System.nanoTime();
+        replay.run(() -> {
+            // on the replayed clock, so the subsystem timers start at the first record
+            s.hub = new HardwareHub(sim);
+            s.sensors = new SensorSnapshot(sim);
+            s.dt = new Drivetrain(sim, multipleTelemetry, s.sensors);
+            s.sm = new ScoringMech(sim, new Rumbler(gamepad1), multipleTelemetry, s.sensors, new BatteryMonitor(sim));
+        }, record -> {
+            double recordDt = record > 0 ? log.getTime(record) - log.getTime(record - 1) : 0;
+            s.hub.update();
+            s.sensors.update();
+            CompTeleOp.drive(recordDt, s.dt, s.sm, gamepad1, gamepad2);
+            CompTeleOp.score(recordDt, s.sm, gamepad1, gamepad2);
+            ActuatorCache.periodic();
+
+            // the subsystems add telemetry every loop, nothing reads it here
+            telemetry.clear();
+        }, active);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        List<String> results = new ArrayList<>();
+        int records = replay.getReplayedRecords();
+        double logged = records > 1 ? log.getTime(records - 1) - log.getTime(0) : 0;
+        results.add("records: " + records);
+        results.add(String.format(Locale.US, "speed: %.0fx real time", elapsed > 0 ? logged / elapsed : 0));
+        LogHistogram loopTimes = replay.getLoopTimes();
+        results.add(String.format(Locale.US, "loop: mean %.3f, p50 %.3f, p99 %.3f, max %.3f ms",
+                loopTimes.getMean(), loopTimes.getPercentile(0.5),
+                loopTimes.getPercentile(0.99), loopTimes.getMax()));
+        for (int i = 0; i < replay.getComparedCount(); i++) {
+            if (replay.getMismatches(i) == 0) {
+                results.add(String.format(Locale.US, "%s: match, max error %.4f",
+                        replay.getComparedName(i), replay.getMaxError(i)));
+            } else {
+                results.add(String.format(Locale.US, "%s: %d mismatches from t=%.2fs, max error %.4f",
+                        replay.getComparedName(i), replay.getMismatches(i),
+                        log.getTime(replay.getFirstMismatch(i)), replay.getMaxError(i)));
+            }
+        }
+        return results;
+    }
+
+    private static File findNewest() {
+        File newest = null;
+        File[] files = LoggingUtil.ROAD_RUNNER_FOLDER.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().startsWith("CompTeleOp-Flight-") && file.getName().endsWith(".bin")
+                        && (newest == null || file.lastModified() > newest.lastModified())) {
+                    newest = file;
+                }
+            }
+        }
+        return newest;
+    }
+}
@@ -0,0 +1,120 @@
+package org.firstinspires.ftc.teamcode.tests;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.profile.MotionState;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+
+import org.firstinspires.ftc.teamcode.utils.AsymmetricMotionProfile;
+import org.firstinspires.ftc.teamcode.utils.LogHistogram;
+import org.firstinspires.ftc.teamcode.utils.MotionConstraint;
+import org.firstinspires.ftc.teamcode.utils.ProfileState;
+
+/**
+ * Compares what sampling an AsymmetricMotionProfile costs with the old recursive getState() and with sample(),
+ * and checks that both give the same states. Samples are timed in batches since one is well under a microsecond.
+ */
+@Config
+@TeleOp(group="test")
+public class ProfileBenchmarkOpMode extends LinearOpMode {
+    public static int batches = 2000;
+    public static int batchSize = 1000;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        // one move with a coast phase and one without, symmetric so the old version handles them the same way
+        AsymmetricMotionProfile[] profiles = {
+                new AsymmetricMotionProfile(0.2, 0.8, new MotionConstraint(1, 4, 4)),
+                new AsymmetricMotionProfile(0.45, 0.5, new MotionConstraint(2, 4, 4))
+        };
+
+        LogHistogram recursiveTimes = new LogHistogram();
+        LogHistogram sampleTimes = new LogHistogram();
+        ProfileState state = new ProfileState();
+        double maxError = 0;
+        // keeps the JIT from throwing the samples away
+        double sink = 0;
+
+        telemetry.addLine("Press start to run " + batches + " batches of " + batchSize + " samples");
+        telemetry.update();
+
+        waitForStart();
+
+        for (int b = 0; b < batches && opModeIsActive(); b++) {
+            AsymmetricMotionProfile profile = profiles[b % profiles.length];
+            double step = profile.getProfileDuration() * 1.1 / batchSize;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < batchSize; i++) {
+                sink += recursiveState(profile, i * step).getX();
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < batchSize; i++) {
+                sink += profile.sample(i * step, state).x;
+            }
+            long t2 = System.nanoTime();
+
+            recursiveTimes.record(t1 - start);
+            sampleTimes.record(t2 - t1);
+
+            for (int i = 0; i < batchSize; i += 10) {
+                MotionState expected = recursiveState(profile, i * step);
+                profile.sample(i * step, state);
+                maxError = Math.max(maxError, Math.abs(expected.getX() - state.x));
+                maxError = Math.max(maxError, Math.abs(expected.getV() - state.v));
+                maxError = Math.max(maxError, Math.abs(expected.getA() - state.a));
+            }
+        }
+
+        addHistogram("getState (recursive)", recursiveTimes);
+        addHistogram("sample", sampleTimes);
+        telemetry.addData("speedup", "%.1fx", recursiveTimes.getMean() / sampleTimes.getMean());
+        telemetry.addData("max difference", "%.2e", maxError);
+        telemetry.addData("checksum", sink);
+        telemetry.update();
+
+        while (opModeIsActive()) {
+            idle();
+        }
+    }
+
+    private void addHistogram(String name, LogHistogram histogram) {
+        telemetry.addData(name, "mean %.1f, p50 %.1f, p99 %.1f ns per sample",
+                histogram.getMean() * 1e6 / batchSize, histogram.getPercentile(0.5) * 1e6 / batchSize,
+                histogram.getPercentile(0.99) * 1e6 / batchSize);
+    }
+
+    /**
+     * What AsymmetricMotionProfile.getState() used to do, kept here to compare against
+     */
+    private static MotionState recursiveState(AsymmetricMotionProfile profile, double seconds) {
+        MotionConstraint constraints = profile.constraints;
+        double acceleration;
+        double velocity;
+        double position;
+
+        if (seconds <= profile.accelTime) {
+            acceleration = Math.abs(constraints.maxAccel);
+            velocity = seconds * acceleration;
+            position = 0.5 * acceleration * Math.pow(seconds, 2);
+        } else if (seconds <= profile.accelTime + profile.coastTime) {
+            acceleration = 0;
+            velocity = recursiveState(profile, profile.accelTime).getV();
+            position = recursiveState(profile, profile.accelTime).getX()
+                    + constraints.maxVelo * (seconds - profile.accelTime);
+        } else if (seconds <= profile.accelTime + profile.coastTime + profile.decelTime) {
+            acceleration = Math.abs(constraints.maxDecel);
+            double coastVelocity = Math.abs(recursiveState(profile, profile.accelTime).getV());
+            velocity = coastVelocity - (seconds - profile.accelTime - profile.coastTime) * acceleration;
+            double endOfCoastTime = profile.accelTime + profile.coastTime;
+            double endOfCoastPosition = recursiveState(profile, endOfCoastTime).getX();
+            position = endOfCoastPosition + coastVelocity * (seconds - endOfCoastTime)
+                    - 0.5 * acceleration * Math.pow(seconds - endOfCoastTime, 2);
+            acceleration *= -1;
+        } else {
+            return new MotionState(Math.abs(profile.finalPosition - profile.initialPosition), 0, 0);
+        }
+
+        return new MotionState(position, velocity, acceleration);
+    }
+}
@@ -25,6 +25,8 @@ public class ProfiledServoTestOpMode extends LinearOpMode
 
     @Override
     public void runOpMode() {
+        Dashboard.reset();
+
         telemetry = new MultipleTelemetry(telemetry, FtcDashboard.getInstance().getTelemetry());
 
         servo = new ProfiledServo(hardwareMap, "s1", new MotionConstraint(1, 4, 4), initialPos);
@@ -0,0 +1,145 @@
+package org.firstinspires.ftc.teamcode.tests;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.MultipleTelemetry;
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.qualcomm.robotcore.eventloop.opmode.LinearOpMode;
+import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
+import org.firstinspires.ftc.teamcode.robot.hardware.HardwareHub;
+import org.firstinspires.ftc.teamcode.robot.hardware.SensorSnapshot;
+import org.firstinspires.ftc.teamcode.robot.hardware.sim.SimHardwareMap;
+import org.firstinspires.ftc.teamcode.robot.subsystems.Drivetrain;
+import org.firstinspires.ftc.teamcode.robot.subsystems.Rumbler;
+import org.firstinspires.ftc.teamcode.robot.subsystems.ScoringMech;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
+import org.firstinspires.ftc.teamcode.utils.LogHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs the subsystems against simulated hardware as fast as possible and reports what each one costs per loop.
+ * Doesn't touch the real hardware map, so it can be run with nothing plugged in, or off the robot through
+ * {@link #main(String[])}.
+ */
+@Config
+@TeleOp(group="test")
+public class SimBenchmarkOpMode extends LinearOpMode {
+    public static int loops = 5000;
+
+    @Override
+    public void runOpMode() throws InterruptedException {
+        Dashboard.reset();
+
+        telemetry.addLine("Press start to run " + loops + " simulated loops");
+        telemetry.update();
+
+        waitForStart();
+
+        for (String line : benchmark(loops, gamepad1, telemetry, this::opModeIsActive)) {
+            telemetry.addLine(line);
+        }
+        telemetry.update();
+
+        while (opModeIsActive()) {
+            idle();
+        }
+    }
+
+    /**
+     * Runs the benchmark on a plain JVM, e.g. from the IDE with the SDK jars on the classpath
+     *
+     * @param args number of loops, optional
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : loops;
+        for (String line : benchmark(count, new Gamepad(), new MultipleTelemetry(), () -> true)) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * @param telemetry what the subsystems write their telemetry to, it is cleared every loop
+     * @param active    checked before every loop, the benchmark stops early once it is false
+     * @return the results, one line each
+     */
+    public static List<String> benchmark(int loops, Gamepad gamepad1, Telemetry telemetry, BooleanSupplier active) {
+        SimHardwareMap sim = SimHardwareMap.robot();
+        MultipleTelemetry multipleTelemetry = new MultipleTelemetry(telemetry);
+
+        HardwareHub hub = new HardwareHub(sim);
+        SensorSnapshot sensors = new SensorSnapshot(sim);
+        Drivetrain dt = new Drivetrain(sim, multipleTelemetry, sensors);
+        ScoringMech sm = new ScoringMech(sim, new Rumbler(gamepad1), multipleTelemetry, sensors);
+        SampleMecanumDrive drive = new SampleMecanumDrive(sim);
+
+        LogHistogram sensorTimes = new LogHistogram();
+        LogHistogram drivetrainTimes = new LogHistogram();
+        LogHistogram scoringTimes = new LogHistogram();
+        LogHistogram followerTimes = new LogHistogram();
+        LogHistogram loopTimes = new LogHistogram();
+
+        drive.followTrajectorySequenceAsync(drive.trajectorySequenceBuilder(new Pose2d())
+                .forward(24)
+                .turn(Math.toRadians(90))
+                .build());
+
+        long start = System.nanoTime();
+        long lastLoopStart = start;
+        for (int i = 0; i < loops && active.getAsBoolean(); i++) {
+            long loopStart = System.nanoTime();
+            double elapsed = (loopStart - lastLoopStart) / 1e9;
+            lastLoopStart = loopStart;
+
+            sim.update();
+            hub.update();
+            sensors.update();
+            long t1 = System.nanoTime();
+
+            dt.driveRobot(elapsed, -0.5, 0.2, 0, false, false, false, false, false);
+            long t2 = System.nanoTime();
+
+            // every couple hundred loops press a lift button so the state machine actually moves
+            boolean press = i % 200 == 0;
+            sm.score(elapsed, false, false, press && i % 400 == 0, press && i % 400 != 0, false,
+                    0, 0, 0, false, false, false, false, false, false);
+            long t3 = System.nanoTime();
+
+            drive.update();
+            long t4 = System.nanoTime();
+
+            sensorTimes.record(t1 - loopStart);
+            drivetrainTimes.record(t2 - t1);
+            scoringTimes.record(t3 - t2);
+            followerTimes.record(t4 - t3);
+            loopTimes.record(t4 - loopStart);
+
+            // the subsystems add telemetry every loop and only some of them send it
+            telemetry.clear();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        List<String> results = new ArrayList<>();
+        results.add(String.format(Locale.US, "loops per second: %.0f", loopTimes.getCount() / elapsed));
+        results.add(String.format(Locale.US, "hardware calls per loop: %.1f",
+                (double) sim.getTotalCalls() / loopTimes.getCount()));
+        results.add(histogramLine("loop", loopTimes));
+        results.add(histogramLine("sensors", sensorTimes));
+        results.add(histogramLine("drivetrain", drivetrainTimes));
+        results.add(histogramLine("scoring", scoringTimes));
+        results.add(histogramLine("follower", followerTimes));
+        return results;
+    }
+
+    private static String histogramLine(String name, LogHistogram histogram) {
+        return String.format(Locale.US, "%s: mean %.3f, p50 %.3f, p99 %.3f, max %.3f ms", name,
+                histogram.getMean(), histogram.getPercentile(0.5),
+                histogram.getPercentile(0.99), histogram.getMax());
+    }
+}
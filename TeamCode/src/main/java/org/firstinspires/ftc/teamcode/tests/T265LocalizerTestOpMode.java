@@ -9,6 +9,7 @@ import com.spartronics4915.lib.T265Camera;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.SampleMecanumDrive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.T265Drive;
 import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.T265Localizer;
+import org.firstinspires.ftc.teamcode.utils.Dashboard;
 
 /**
  * This is a simple teleop routine for testing localization. Drive the robot around like a normal
@@ -21,6 +22,8 @@ import org.firstinspires.ftc.teamcode.autonomous.roadrunner.drive.T265Localizer;
 public class T265LocalizerTestOpMode extends LinearOpMode {
     @Override
     public void runOpMode() throws InterruptedException {
+        Dashboard.reset();
+
         T265Drive drive = new T265Drive(hardwareMap);
 
         drive.setMode(DcMotor.RunMode.RUN_WITHOUT_ENCODER);
@@ -47,6 +50,7 @@ public class T265LocalizerTestOpMode extends LinearOpMode {
             telemetry.addData("confidence", poseConfidence);
 
             telemetry.update();
+            Dashboard.periodic();
         }
     }
 }
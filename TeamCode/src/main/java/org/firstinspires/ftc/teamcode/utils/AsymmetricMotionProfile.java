@@ -2,10 +2,24 @@ package org.firstinspires.ftc.teamcode.utils;
 
 import com.acmerobotics.roadrunner.profile.MotionState;
 
+/**
+ * Trapezoidal profile from one position to another with different accel and decel limits.
+ * <p>
+ * States are measured along the direction of travel: x is the distance moved towards the final position and ends
+ * at |finalPosition - initialPosition|. If the profile starts moving (see the initial velocity constructor) it
+ * may first have to brake, so x can go below zero when it starts moving away from the target, or past the end
+ * and back when it can't stop in time.
+ * <p>
+ * The profile is a handful of constant jerk segments computed when it is constructed, so sampling it is a short
+ * scan with no allocation. Here the jerk is always 0, see {@link SCurveMotionProfile} for a jerk limited one.
+ */
 public class AsymmetricMotionProfile {
+    // an S-curve needs three per velocity change, three changes and a coast
+    protected static final int MAX_SEGMENTS = 10;
 
     public final double initialPosition;
     public final double finalPosition;
+    public final double initialVelocity;
     public final MotionConstraint constraints;
     public double accelTime;
     public double coastTime;
@@ -13,69 +27,186 @@ public class AsymmetricMotionProfile {
     protected double profileDuration = 0;
     protected double distance;
 
+    // every constant jerk segment and the state at its start
+    protected final double[] segmentTimes = new double[MAX_SEGMENTS];
+    protected final double[] segmentPositions = new double[MAX_SEGMENTS];
+    protected final double[] segmentVelocities = new double[MAX_SEGMENTS];
+    protected final double[] segmentAccels = new double[MAX_SEGMENTS];
+    protected final double[] segmentJerks = new double[MAX_SEGMENTS];
+    protected final double[] segmentDurations = new double[MAX_SEGMENTS];
+    protected int segmentCount = 0;
+
     public AsymmetricMotionProfile(double initialPosition, double finalPosition, MotionConstraint constraints) {
+        this(initialPosition, finalPosition, 0, constraints);
+    }
+
+    /**
+     * @param initialVelocity velocity at the start in position units per second, positive when the position is
+     *                        increasing regardless of where the final position is
+     */
+    public AsymmetricMotionProfile(double initialPosition, double finalPosition, double initialVelocity,
+                                   MotionConstraint constraints) {
         this.initialPosition = initialPosition;
         this.finalPosition = finalPosition;
+        this.initialVelocity = initialVelocity;
         this.constraints = constraints;
         computeProfileTimes();
     }
 
+    /**
+     * @return an {@link SCurveMotionProfile} if the constraints limit jerk, otherwise a trapezoidal profile
+     */
+    public static AsymmetricMotionProfile generate(double initialPosition, double finalPosition,
+                                                   double initialVelocity, MotionConstraint constraints) {
+        if (constraints.maxJerk > 0) {
+            return new SCurveMotionProfile(initialPosition, finalPosition, initialVelocity, constraints);
+        }
+        return new AsymmetricMotionProfile(initialPosition, finalPosition, initialVelocity, constraints);
+    }
+
     protected void computeProfileTimes() {
         distance = finalPosition - initialPosition;
 
-        this.accelTime = Math.abs(constraints.maxVelo) / Math.abs(constraints.maxAccel);
-        this.decelTime = Math.abs(constraints.maxVelo) / Math.abs(constraints.maxDecel);
+        double maxVelo = Math.abs(constraints.maxVelo);
+        double accel = Math.abs(constraints.maxAccel);
+        double decel = Math.abs(constraints.maxDecel);
+        double target = Math.abs(distance);
+        double velocity = distance < 0 ? -initialVelocity : initialVelocity;
 
-        this.coastTime = Math.abs(distance) / Math.abs(constraints.maxVelo) - (accelTime + decelTime) / 2;
+        segmentCount = 0;
+        double position = 0;
+        double brakeTime = 0;
+        if (velocity < 0 || velocity * velocity / (2 * decel) > target) {
+            // moving away, or too fast to stop before the target: come to a stop first
+            brakeTime = Math.abs(velocity) / decel;
+            position = velocity * brakeTime / 2;
+            addSegment(brakeTime, velocity < 0 ? decel : -decel);
+            velocity = 0;
+        }
 
-        if (this.coastTime < 0) {
-            this.coastTime = 0;
-            if (Math.abs(this.constraints.maxAccel) > Math.abs(constraints.maxDecel)) {
-                constraints.maxAccel = Math.abs(constraints.maxDecel);
-            }
-            else {
-                constraints.maxDecel = Math.abs(constraints.maxAccel);
-            }
+        // the rest is a trapezoid, backwards if the brake went past the target
+        double remaining = target - position;
+        double sign = remaining < 0 ? -1 : 1;
+        remaining = Math.abs(remaining);
+        velocity = Math.abs(velocity);
 
-            this.accelTime = Math.sqrt(Math.abs(distance) / Math.abs(constraints.maxAccel));
-            this.decelTime = Math.sqrt(Math.abs(distance) / Math.abs(constraints.maxDecel));
+        double peakVelocity = maxVelo;
+        if (velocity <= maxVelo
+                && (maxVelo * maxVelo - velocity * velocity) / (2 * accel) + maxVelo * maxVelo / (2 * decel) > remaining) {
+            // never gets to max velocity
+            peakVelocity = Math.sqrt((remaining + velocity * velocity / (2 * accel)) / (1 / (2 * accel) + 1 / (2 * decel)));
         }
+        double rampAccel = peakVelocity >= velocity ? accel : -decel;
+        double rampTime = (peakVelocity - velocity) / rampAccel;
+        double rampDistance = (peakVelocity * peakVelocity - velocity * velocity) / (2 * rampAccel);
+        decelTime = peakVelocity / decel;
+        coastTime = peakVelocity > 0
+                ? Math.max((remaining - rampDistance - peakVelocity * decelTime / 2) / peakVelocity, 0) : 0;
+        accelTime = brakeTime + rampTime;
+
+        addSegment(rampTime, rampAccel * sign);
+        addSegment(coastTime, 0);
+        addSegment(decelTime, -decel * sign);
 
-        this.profileDuration = this.accelTime + this.coastTime + this.decelTime;
+        profileDuration = accelTime + coastTime + decelTime;
     }
 
-    public MotionState getState(double seconds) {
-        double acceleration;
-        double velocity;
-        double position;
-
-        if (seconds <= this.accelTime) {
-            acceleration = Math.abs(constraints.maxAccel);
-            velocity = seconds * acceleration;
-            position = 0.5 * acceleration * Math.pow(seconds, 2);
-        } else if (seconds <= this.accelTime + this.coastTime) {
-            acceleration = 0;
-            velocity = getState(this.accelTime).getV();
-            position = getState(this.accelTime).getX() + constraints.maxVelo * (seconds - this.accelTime);
-        } else if (seconds <= this.accelTime + this.coastTime + this.decelTime) {
-            acceleration = Math.abs(constraints.maxDecel);
-            double coastVelocity = Math.abs(getState(this.accelTime).getV());
-            velocity = coastVelocity - (seconds - this.accelTime - this.coastTime) * acceleration;
-            double endOfCoastTime = this.accelTime + this.coastTime;
-            double endOfCoastPosition = getState(endOfCoastTime).getX();
-            position = endOfCoastPosition + coastVelocity * (seconds - endOfCoastTime) - 0.5 * acceleration * Math.pow(seconds - endOfCoastTime, 2);
-            acceleration *= -1;
+    protected void addSegment(double duration, double acceleration) {
+        addSegment(duration, acceleration, 0);
+    }
+
+    /**
+     * Appends a segment, starting where the previous one ends
+     *
+     * @param acceleration acceleration at the start of the segment
+     */
+    protected void addSegment(double duration, double acceleration, double jerk) {
+        if (duration <= 0) {
+            return;
+        }
+        int i = segmentCount;
+        if (i == 0) {
+            segmentTimes[i] = 0;
+            segmentPositions[i] = 0;
+            segmentVelocities[i] = distance < 0 ? -initialVelocity : initialVelocity;
         } else {
-            acceleration = 0;
-            velocity = 0;
-            return new MotionState(Math.abs(distance),
-                    velocity * Math.signum(distance), acceleration * Math.signum(distance));
+            double dt = segmentDurations[i - 1];
+            segmentTimes[i] = segmentTimes[i - 1] + dt;
+            segmentPositions[i] = positionAt(i - 1, dt);
+            segmentVelocities[i] = velocityAt(i - 1, dt);
         }
+        segmentDurations[i] = duration;
+        segmentAccels[i] = acceleration;
+        segmentJerks[i] = jerk;
+        segmentCount++;
+    }
 
-        return new MotionState(position, velocity, acceleration);
+    private double positionAt(int i, double dt) {
+        return segmentPositions[i] + dt * (segmentVelocities[i] + dt * (segmentAccels[i] / 2 + dt * segmentJerks[i] / 6));
+    }
+
+    private double velocityAt(int i, double dt) {
+        return segmentVelocities[i] + dt * (segmentAccels[i] + dt * segmentJerks[i] / 2);
+    }
+
+    /**
+     * Allocates a new state every call, use {@link #sample(double, ProfileState)} in loops
+     */
+    public MotionState getState(double seconds) {
+        ProfileState state = sample(seconds, new ProfileState());
+        return new MotionState(state.x, state.v, state.a);
+    }
+
+    /**
+     * Writes the state at a time into out, measured along the direction of travel
+     *
+     * @return out
+     */
+    public ProfileState sample(double seconds, ProfileState out) {
+        if (seconds > profileDuration || segmentCount == 0) {
+            return out.set(Math.abs(distance), 0, 0);
+        }
+        int i = segmentCount - 1;
+        while (i > 0 && seconds < segmentTimes[i]) {
+            i--;
+        }
+        double dt = seconds - segmentTimes[i];
+        return out.set(positionAt(i, dt), velocityAt(i, dt), segmentAccels[i] + segmentJerks[i] * dt);
+    }
+
+    /**
+     * @return 1 if the final position is above the initial one, -1 if below
+     */
+    public int getDirection() {
+        return distance < 0 ? -1 : 1;
+    }
+
+    /**
+     * Finds when the profile first gets to a position by bisection, so it is only exact for profiles that don't
+     * have to brake and turn around first
+     *
+     * @return seconds from the start, or NaN if the position isn't between the initial and final positions
+     */
+    public double getTimeTo(double position) {
+        double x = (position - initialPosition) * getDirection();
+        if (x < 0 || x > Math.abs(distance)) {
+            return Double.NaN;
+        }
+        ProfileState state = new ProfileState();
+        double low = 0;
+        double high = profileDuration;
+        for (int i = 0; i < 50; i++) {
+            double mid = (low + high) / 2;
+            if (sample(mid, state).x >= x) {
+                high = mid;
+            } else {
+                low = mid;
+            }
+        }
+        return high;
     }
 
     public double getProfileDuration() {
         return profileDuration;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.roadrunner.util.NanoClock;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+/**
+ * Time source for everything the robot code decides based on time (timeouts, rate limits, profiles), so a log
+ * replay can run it at its own pace. Runs on {@link System#nanoTime()} unless {@link #setTime(long)} has
+ * taken it over, which is only meant for replays and benchmarks.
+ * <p>
+ * Code that measures how long something took in real time (profiling, loop timing) should keep using
+ * System.nanoTime() directly.
+ */
+public class Clock {
+    private static volatile boolean manual = false;
+    private static volatile long manualTime = 0;
+
+    private static final NanoClock NANO_CLOCK = new NanoClock() {
+        @Override
+        public double seconds() {
+            return nanoTime() / 1e9;
+        }
+    };
+
+    public static long nanoTime() {
+        return manual ? manualTime : System.nanoTime();
+    }
+
+    public static double seconds() {
+        return nanoTime() / 1e9;
+    }
+
+    /**
+     * @return a RoadRunner clock on this time source
+     */
+    public static NanoClock nano() {
+        return NANO_CLOCK;
+    }
+
+    /**
+     * Stops the clock at the given time, it only moves again when this is called again
+     */
+    public static void setTime(long nanos) {
+        manualTime = nanos;
+        manual = true;
+    }
+
+    /**
+     * Goes back to System.nanoTime(). Times taken before and after switching can't be compared.
+     */
+    public static void useSystemTime() {
+        manual = false;
+    }
+
+    public static boolean isManual() {
+        return manual;
+    }
+
+    /**
+     * {@link ElapsedTime} on this time source
+     */
+    public static class Timer extends ElapsedTime {
+        public Timer() {
+            super();
+        }
+
+        public Timer(Resolution resolution) {
+            super(resolution);
+        }
+
+        @Override
+        protected long nsNow() {
+            return nanoTime();
+        }
+    }
+}
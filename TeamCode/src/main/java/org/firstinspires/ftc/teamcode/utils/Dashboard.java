@@ -1,29 +1,476 @@
 package org.firstinspires.ftc.teamcode.utils;
 
 import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.canvas.Canvas;
+import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
-import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.util.ElapsedTime;
 
 import org.firstinspires.ftc.robotcore.external.stream.CameraStreamSource;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Single path from the control loop to the dashboard. The loop only writes values and calls {@link #periodic()}
+ * to publish them; a background thread merges everything published since its last send into one packet and
+ * sends it at {@link #sendRate}. Only the latest value of every key is sent.
+ * <p>
+ * Values that are written every loop should go through channels: the key is registered once with
+ * {@link #register(String)}, and {@link #set(int, double)} only writes a primitive into a preallocated slot.
+ * Channels and keys keep their last value until they are written again. {@link #put(String, Object)} is there
+ * for values that aren't written every loop and don't mind allocating.
+ * <p>
+ * The field overlay is drawn by the sender thread, see {@link #setFieldOverlay(FieldOverlay)}. The sender reuses
+ * a small pool of packets, which it empties before reusing. The dashboard library still turns every value into a
+ * string when it is put into a packet, but that happens on the sender thread.
+ * <p>
+ * Everything above outlives the OpMode that set it, so OpModes call {@link #reset()} when they start.
+ * <p>
+ * With {@link #deltaEncoding} on, a packet only carries the keys whose value changed by more than the key's
+ * tolerance since it was last sent, and every {@link #keyframeInterval} a packet carries everything. Graphs don't
+ * notice, but the telemetry view only lists the keys of the latest packet, so it is off by default and meant to
+ * be turned on from the dashboard when the link is the bottleneck. Only channels and keys are delta encoded,
+ * values sent through the dashboard telemetry are sent as they are.
+ */
+@Config
 public class Dashboard {
-    public static TelemetryPacket packet = new TelemetryPacket();
+    // Config parameters
+    public static double sendRate = 20; // Hz
+    public static boolean deltaEncoding = false;
+    public static double keyframeInterval = 1; // seconds
+
+    public interface FieldOverlay {
+        /**
+         * Called on the sender thread for every packet, so it must not race with the control loop
+         */
+        void draw(Canvas canvas);
+    }
+
     static FtcDashboard dashboard = FtcDashboard.getInstance();
     static ElapsedTime dashboardTimer = new ElapsedTime();
 
+    private static final int MAX_CHANNELS = 128;
+    // a channel's type is 0 until it is first set, so channels that were never set aren't sent
+    private static final byte DOUBLE = 1, INTEGER = 2, BOOLEAN = 3, STRING = 4;
+
+    private static final String[] channelKeys = new String[MAX_CHANNELS];
+    private static final double[] channelTolerances = new double[MAX_CHANNELS];
+    private static int channelCount = 0;
+
+    // only touched by the control loop
+    private static final double[] channelValues = new double[MAX_CHANNELS];
+    private static final String[] channelStrings = new String[MAX_CHANNELS];
+    private static final byte[] channelTypes = new byte[MAX_CHANNELS];
+    private static final boolean[] channelDirty = new boolean[MAX_CHANNELS];
+    private static final Map<String, Object> objects = new HashMap<>();
+    private static final List<String> lines = new ArrayList<>();
+
+    // handed from the control loop to the sender, guarded by lock
+    private static final Object lock = new Object();
+    private static final double[] publishedValues = new double[MAX_CHANNELS];
+    private static final String[] publishedStrings = new String[MAX_CHANNELS];
+    private static final byte[] publishedTypes = new byte[MAX_CHANNELS];
+    private static final boolean[] publishedPending = new boolean[MAX_CHANNELS];
+    private static final Map<String, Object> publishedObjects = new HashMap<>();
+    private static final List<String> publishedLines = new ArrayList<>();
+    private static int publishedChannelCount = 0;
+    private static int publishes = 0;
+    private static boolean resetPending = false;
+    private static long merged = 0;
+    private static long dropped = 0;
+    private static volatile long suppressed = 0;
+
+    // only touched by the sender
+    private static final double[] sendValues = new double[MAX_CHANNELS];
+    private static final String[] sendStrings = new String[MAX_CHANNELS];
+    private static final byte[] sendTypes = new byte[MAX_CHANNELS];
+    private static final Map<String, Object> sendObjects = new HashMap<>();
+    private static final List<String> sendLines = new ArrayList<>();
+    // what the dashboard last got for every key, for leaving out the ones that haven't changed
+    private static final double[] sentValues = new double[MAX_CHANNELS];
+    private static final String[] sentStrings = new String[MAX_CHANNELS];
+    private static final byte[] sentTypes = new byte[MAX_CHANNELS];
+    private static final Map<String, Object> sentObjects = new HashMap<>();
+
+    // the dashboard serializes a packet some time after it is given it, so a packet is only reused once the rest
+    // of the pool has been sent
+    public static final int PACKET_POOL_SIZE = 8;
+    private static final TelemetryPacket[] packets = new TelemetryPacket[PACKET_POOL_SIZE];
+    // ops on the overlay of a new packet, i.e. the default field, which are kept when it is emptied
+    private static final int[] packetBaseOps = new int[PACKET_POOL_SIZE];
+    // TelemetryPacket can't remove keys and Canvas can't be cleared, so they are emptied through their fields
+    private static final Field PACKET_DATA = findField(TelemetryPacket.class, "data");
+    private static final Field CANVAS_OPS = findField(Canvas.class, "ops");
+
+    private static volatile FieldOverlay fieldOverlay = null;
+    private static Thread sender = null;
+
+    private static final int LOOP_TIME = register("Loop time");
+
+    /**
+     * Registers a channel, or looks up an existing one with the same key
+     *
+     * @return handle to pass to {@link #set(int, double)}
+     */
+    public static int register(String key) {
+        return register(key, 0);
+    }
+
+    /**
+     * Registers a channel that is only sent when it moves by more than the tolerance, or looks up an existing
+     * one with the same key
+     *
+     * @param tolerance largest change that isn't sent outside of keyframes
+     * @return handle to pass to {@link #set(int, double)}
+     */
+    public static synchronized int register(String key, double tolerance) {
+        for (int i = 0; i < channelCount; i++) {
+            if (channelKeys[i].equals(key)) {
+                return i;
+            }
+        }
+        if (channelCount == MAX_CHANNELS) {
+            throw new IllegalStateException("Too many dashboard channels, can't register " + key);
+        }
+        channelKeys[channelCount] = key;
+        channelTolerances[channelCount] = tolerance;
+        return channelCount++;
+    }
+
+    public static void set(int channel, double value) {
+        channelValues[channel] = value;
+        channelTypes[channel] = DOUBLE;
+        channelDirty[channel] = true;
+    }
+
+    public static void set(int channel, int value) {
+        channelValues[channel] = value;
+        channelTypes[channel] = INTEGER;
+        channelDirty[channel] = true;
+    }
+
+    public static void set(int channel, boolean value) {
+        channelValues[channel] = value ? 1 : 0;
+        channelTypes[channel] = BOOLEAN;
+        channelDirty[channel] = true;
+    }
+
+    /**
+     * Only stores the reference, so the string should be built somewhere that isn't run every loop
+     */
+    public static void set(int channel, String value) {
+        channelStrings[channel] = value;
+        channelTypes[channel] = STRING;
+        channelDirty[channel] = true;
+    }
+
     public static void put(String key, Object value) {
-        packet.put(key, value);
+        objects.put(key, value);
+    }
+
+    /**
+     * Adds a line to the packet log. The lines of every publish replace the previous ones.
+     */
+    public static void addLine(String line) {
+        lines.add(line);
+    }
+
+    /**
+     * Replaces whatever was drawing the field overlay, null to stop drawing it
+     */
+    public static void setFieldOverlay(FieldOverlay overlay) {
+        fieldOverlay = overlay;
+    }
+
+    /**
+     * Forgets every value, key and line and the field overlay, so nothing from the previous OpMode is sent.
+     * Channels stay registered but aren't sent until they are set again. Must be called from the control loop.
+     */
+    public static void reset() {
+        fieldOverlay = null;
+        for (int i = 0; i < channelCount; i++) {
+            channelValues[i] = 0;
+            channelStrings[i] = null;
+            channelTypes[i] = 0;
+            channelDirty[i] = false;
+        }
+        objects.clear();
+        lines.clear();
+        dashboardTimer.reset();
+
+        synchronized (lock) {
+            for (int i = 0; i < MAX_CHANNELS; i++) {
+                publishedValues[i] = 0;
+                publishedStrings[i] = null;
+                publishedTypes[i] = 0;
+                publishedPending[i] = false;
+            }
+            publishedObjects.clear();
+            publishedLines.clear();
+            publishes = 0;
+            resetPending = true;
+        }
     }
 
+    /**
+     * Times the loop and publishes, should be called once at the end of every loop
+     */
     public static void periodic() {
-        dashboard.sendTelemetryPacket(packet);
-        packet = new TelemetryPacket();
-        packet.put("Loop time", dashboardTimer.milliseconds());
+        timeLoop();
+        publish();
+    }
+
+    /**
+     * Sets "Loop time" to the time since the last call. {@link #periodic()} does this, a loop that publishes less
+     * often than it runs should call this every loop instead and {@link #publish()} when it publishes.
+     */
+    public static void timeLoop() {
+        set(LOOP_TIME, dashboardTimer.milliseconds());
         dashboardTimer.reset();
     }
 
+    /**
+     * Hands everything written since the last publish to the sender. Must be called from the control loop.
+     */
+    public static void publish() {
+        synchronized (lock) {
+            for (int i = 0; i < channelCount; i++) {
+                if (!channelDirty[i]) {
+                    continue;
+                }
+                channelDirty[i] = false;
+                // the previous value never made it into a packet
+                if (publishedPending[i]) {
+                    dropped++;
+                }
+                publishedValues[i] = channelValues[i];
+                publishedStrings[i] = channelStrings[i];
+                publishedTypes[i] = channelTypes[i];
+                publishedPending[i] = true;
+            }
+            publishedChannelCount = channelCount;
+
+            if (!objects.isEmpty()) {
+                publishedObjects.putAll(objects);
+                objects.clear();
+            }
+            if (!lines.isEmpty() || !publishedLines.isEmpty()) {
+                publishedLines.clear();
+                publishedLines.addAll(lines);
+                lines.clear();
+            }
+
+            publishes++;
+            lock.notifyAll();
+        }
+
+        if (sender == null) {
+            // packets are already rate limited, so the dashboard can forward them as soon as it gets them
+            dashboard.setTelemetryTransmissionInterval(25);
+            sender = new Thread(Dashboard::send, "DashboardSender");
+            sender.setDaemon(true);
+            sender.start();
+        }
+    }
+
+    private static void send() {
+        long lastSend = System.nanoTime();
+        int nextPacket = 0;
+        long sentMerged = -1, sentDropped = -1;
+        long lastKeyframe = 0;
+        boolean keyframeDue = true;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            int count;
+            long sendMerged, sendDropped;
+            try {
+                if (sendRate > 0) {
+                    long wait = lastSend + (long) (1e9 / sendRate) - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                    }
+                }
+
+                synchronized (lock) {
+                    while (publishes == 0) {
+                        lock.wait();
+                    }
+                    merged += publishes - 1;
+                    publishes = 0;
+
+                    if (resetPending) {
+                        resetPending = false;
+                        sendObjects.clear();
+                        sentObjects.clear();
+                        keyframeDue = true;
+                    }
+
+                    count = publishedChannelCount;
+                    System.arraycopy(publishedValues, 0, sendValues, 0, count);
+                    System.arraycopy(publishedStrings, 0, sendStrings, 0, count);
+                    System.arraycopy(publishedTypes, 0, sendTypes, 0, count);
+                    for (int i = 0; i < count; i++) {
+                        publishedPending[i] = false;
+                    }
+                    sendObjects.putAll(publishedObjects);
+                    sendLines.clear();
+                    sendLines.addAll(publishedLines);
+                    sendMerged = merged;
+                    sendDropped = dropped;
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            lastSend = System.nanoTime();
+
+            boolean keyframe = !deltaEncoding || keyframeDue || lastSend - lastKeyframe >= keyframeInterval * 1e9;
+            if (keyframe) {
+                lastKeyframe = lastSend;
+                keyframeDue = false;
+            }
+
+            // everything from here on is off the control loop, so formatting is fine
+            TelemetryPacket packet = takePacket(nextPacket);
+            nextPacket = (nextPacket + 1) % PACKET_POOL_SIZE;
+            int keys = 0;
+            long skipped = 0;
+            for (int i = 0; i < count; i++) {
+                if (sendTypes[i] == 0) {
+                    continue;
+                }
+                if (!keyframe && sendTypes[i] == sentTypes[i] && (sendTypes[i] == STRING
+                        ? Objects.equals(sendStrings[i], sentStrings[i])
+                        : Math.abs(sendValues[i] - sentValues[i]) <= channelTolerances[i])) {
+                    skipped++;
+                    continue;
+                }
+                sentValues[i] = sendValues[i];
+                sentStrings[i] = sendStrings[i];
+                sentTypes[i] = sendTypes[i];
+                keys++;
+
+                switch (sendTypes[i]) {
+                    case DOUBLE:
+                        packet.put(channelKeys[i], sendValues[i]);
+                        break;
+                    case INTEGER:
+                        packet.put(channelKeys[i], (int) sendValues[i]);
+                        break;
+                    case BOOLEAN:
+                        packet.put(channelKeys[i], sendValues[i] != 0);
+                        break;
+                    case STRING:
+                        packet.put(channelKeys[i], sendStrings[i]);
+                        break;
+                }
+            }
+            for (Map.Entry<String, Object> entry : sendObjects.entrySet()) {
+                if (!keyframe && Objects.equals(entry.getValue(), sentObjects.get(entry.getKey()))) {
+                    skipped++;
+                    continue;
+                }
+                sentObjects.put(entry.getKey(), entry.getValue());
+                packet.put(entry.getKey(), entry.getValue());
+                keys++;
+            }
+            for (String line : sendLines) {
+                packet.addLine(line);
+            }
+            if (keyframe || sendMerged != sentMerged || sendDropped != sentDropped) {
+                packet.put("telemetry merged", sendMerged);
+                packet.put("telemetry dropped", sendDropped);
+                sentMerged = sendMerged;
+                sentDropped = sendDropped;
+                keys++;
+            }
+            suppressed += skipped;
+
+            FieldOverlay overlay = fieldOverlay;
+            if (overlay != null) {
+                overlay.draw(packet.fieldOverlay());
+            } else if (keys == 0 && sendLines.isEmpty()) {
+                // nothing changed, don't send an empty packet
+                continue;
+            }
+
+            dashboard.sendTelemetryPacket(packet);
+        }
+    }
+
+    /**
+     * @return an empty packet from the pool, a new one if it can't be emptied
+     */
+    private static TelemetryPacket takePacket(int i) {
+        TelemetryPacket packet = packets[i];
+        if (packet != null && PACKET_DATA != null && CANVAS_OPS != null) {
+            try {
+                ((Map<?, ?>) PACKET_DATA.get(packet)).clear();
+                List<?> ops = (List<?>) CANVAS_OPS.get(packet.fieldOverlay());
+                ops.subList(packetBaseOps[i], ops.size()).clear();
+                packet.clearLines();
+                return packet;
+            } catch (IllegalAccessException | ClassCastException | UnsupportedOperationException e) {
+                // fall through to a new packet
+            }
+        }
+        packet = new TelemetryPacket();
+        packets[i] = packet;
+        packetBaseOps[i] = countOps(packet.fieldOverlay());
+        return packet;
+    }
+
+    private static int countOps(Canvas canvas) {
+        if (CANVAS_OPS == null) {
+            return 0;
+        }
+        try {
+            return ((List<?>) CANVAS_OPS.get(canvas)).size();
+        } catch (IllegalAccessException | ClassCastException e) {
+            return 0;
+        }
+    }
+
+    private static Field findField(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return total number of publishes that were folded into a later one before being sent
+     */
+    public static long getMerged() {
+        synchronized (lock) {
+            return merged;
+        }
+    }
+
+    /**
+     * @return total number of channel values that were overwritten before being sent
+     */
+    public static long getDropped() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    /**
+     * @return total number of unchanged values left out of packets by delta encoding
+     */
+    public static long getSuppressed() {
+        return suppressed;
+    }
+
     public void startCameraStream(CameraStreamSource source, int maxFps) {
         dashboard.startCameraStream(source,maxFps);
     }
-}
\ No newline at end of file
+}
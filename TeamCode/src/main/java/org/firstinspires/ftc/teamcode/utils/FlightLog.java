@@ -0,0 +1,201 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A {@link FlightRecorder} file read back into columns, oldest record first. Doesn't depend on anything from
+ * the SDK, so it can also be run on a laptop on a pulled log:
+ * <pre>
+ *     java FlightLog CompTeleOp-Flight-1234.bin
+ * </pre>
+ * writes CompTeleOp-Flight-1234.csv and CompTeleOp-Flight-1234.cols next to it.
+ */
+public class FlightLog {
+    /**
+     * Order of the bits in the "buttons" gamepad fields, lowest bit first
+     */
+    public static final String[] BUTTONS = {
+            "a", "b", "x", "y",
+            "dpad_up", "dpad_down", "dpad_left", "dpad_right",
+            "left_bumper", "right_bumper", "left_stick_button", "right_stick_button",
+            "back", "start", "guide"
+    };
+
+    private final String[] names;
+    private final long[] timestamps; // ns since the recorder was started
+    private final float[][] columns;
+    private final long droppedRecords;
+
+    private FlightLog(String[] names, long[] timestamps, float[][] columns, long droppedRecords) {
+        this.names = names;
+        this.timestamps = timestamps;
+        this.columns = columns;
+        this.droppedRecords = droppedRecords;
+    }
+
+    public static FlightLog read(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            ByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getInt() != FlightRecorder.MAGIC) {
+                throw new IOException(file + " is not a flight log");
+            }
+            int version = buffer.getInt();
+            if (version != FlightRecorder.VERSION) {
+                throw new IOException("Unsupported flight log version " + version);
+            }
+            int fieldCount = buffer.getInt();
+            int recordSize = buffer.getInt();
+            int capacity = buffer.getInt();
+            long records = buffer.getLong();
+
+            String[] names = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+            }
+            int dataOffset = (buffer.position() + 7) / 8 * 8;
+
+            // once the ring has wrapped the oldest record is the one that would be overwritten next
+            int count = (int) Math.min(records, capacity);
+            long first = records - count;
+
+            long[] timestamps = new long[count];
+            float[][] columns = new float[fieldCount][count];
+            for (int r = 0; r < count; r++) {
+                int index = dataOffset + (int) ((first + r) % capacity) * recordSize;
+                timestamps[r] = buffer.getLong(index);
+                index += 8;
+                for (int f = 0; f < fieldCount; f++) {
+                    columns[f][r] = buffer.getFloat(index);
+                    index += 4;
+                }
+            }
+
+            return new FlightLog(names, timestamps, columns, first);
+        }
+    }
+
+    public int getRecordCount() {
+        return timestamps.length;
+    }
+
+    /**
+     * @return number of records that were overwritten because the file was full
+     */
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    public String[] getFieldNames() {
+        return names.clone();
+    }
+
+    /**
+     * @return index of the field with this name, or -1 if it wasn't recorded
+     */
+    public int getFieldIndex(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return time of every record in seconds since the recorder was started
+     */
+    public double getTime(int record) {
+        return timestamps[record] / 1e9;
+    }
+
+    /**
+     * @return time of a record in ns since the recorder was started
+     */
+    public long getTimestamp(int record) {
+        return timestamps[record];
+    }
+
+    public float[] getColumn(int field) {
+        return columns[field];
+    }
+
+    /**
+     * @return the recorded values, or null if the field wasn't recorded
+     */
+    public float[] getColumn(String name) {
+        int field = getFieldIndex(name);
+        return field < 0 ? null : columns[field];
+    }
+
+    public void writeCsv(File file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(file)) {
+            pw.print("time");
+            for (String name : names) {
+                pw.print(",");
+                pw.print(name);
+            }
+            pw.println();
+
+            for (int r = 0; r < timestamps.length; r++) {
+                pw.print(getTime(r));
+                for (float[] column : columns) {
+                    pw.print(",");
+                    pw.print(column[r]);
+                }
+                pw.println();
+            }
+        }
+    }
+
+    /**
+     * Writes the log column by column: the record count, the field count and every field name, then the
+     * timestamps as longs followed by each column as floats, all big endian. Reading a single column only
+     * needs a seek, which is what most analysis wants.
+     */
+    public void writeColumns(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(timestamps.length);
+            out.writeInt(names.length);
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+            for (long timestamp : timestamps) {
+                out.writeLong(timestamp);
+            }
+            for (float[] column : columns) {
+                for (float value : column) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts every log given on the command line to CSV and columnar files
+     */
+    public static void main(String[] args) throws IOException {
+        for (String arg : args) {
+            File file = new File(arg);
+            String base = file.getPath().replaceFirst("\\.bin$", "");
+            FlightLog log = read(file);
+            log.writeCsv(new File(base + ".csv"));
+            log.writeColumns(new File(base + ".cols"));
+            System.out.println(arg + ": " + log.getRecordCount() + " records, "
+                    + log.getDroppedRecords() + " overwritten");
+        }
+    }
+}
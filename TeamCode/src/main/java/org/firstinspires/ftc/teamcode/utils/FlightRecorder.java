@@ -0,0 +1,254 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LoggingUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Records a fixed set of values every loop into a memory mapped ring file in the log folder, for finding out
+ * after a match what the robot saw and did. Fields are registered once by name, usually into a static final
+ * field, and written with {@link #set(int, double)} wherever the value is read or commanded:
+ * <pre>
+ *     private static final int LIFT1_POSITION = FlightRecorder.field("lift1 position");
+ *     ...
+ *     FlightRecorder.set(LIFT1_POSITION, lift1.getCurrentPosition());
+ * </pre>
+ * Inputs are named after the device they were read from ("lift1 position", "imu heading") so a log can be
+ * fed back into simulated hardware.
+ * <p>
+ * The OpMode calls {@link #start(String)} once every subsystem is constructed, {@link #commit()} at the end of
+ * every loop and {@link #stop()} when it ends. The schema is fixed by start(): fields registered after it are
+ * not recorded. Committing only stores into the mapped file, which the OS writes back on its own, so the loop
+ * never waits on storage. Once the file is full the oldest records are overwritten.
+ * <p>
+ * Every value is stored as a float. See {@link FlightLog} for reading the file back.
+ */
+@Config
+public class FlightRecorder {
+    // Config parameters
+    public static boolean enabled = true;
+    public static int capacity = 30000; // records, read by start(). 10 minutes at 50 Hz
+    public static int keptLogs = 2; // newest flight logs the log quota never deletes, i.e. the last match
+
+    public static final int MAX_FIELDS = 128;
+
+    static final int MAGIC = 0x464C5452; // "FLTR"
+    static final int VERSION = 1;
+    // magic, version, field count, record size, capacity, then the number of records ever committed
+    static final int RECORDS_OFFSET = 20;
+    static final int NAMES_OFFSET = RECORDS_OFFSET + 8;
+    static final String LOG_TAG = "flight";
+
+    private static final String[] names = new String[MAX_FIELDS];
+    private static final float[] values = new float[MAX_FIELDS];
+    private static int fieldCount = 0;
+
+    private static MappedByteBuffer buffer = null;
+    private static RandomAccessFile file = null;
+    private static File logFile = null;
+    private static int recordedFields = 0;
+    private static int recordSize = 0;
+    private static int recordCapacity = 0;
+    private static int dataOffset = 0;
+    private static long records = 0;
+    private static long startTime = 0;
+
+    private static final int[] GAMEPAD1 = gamepadFields("gamepad1");
+    private static final int[] GAMEPAD2 = gamepadFields("gamepad2");
+
+    /**
+     * Registers a field, or looks up an existing one with the same name
+     *
+     * @return id to pass to {@link #set(int, double)}
+     */
+    public static synchronized int field(String name) {
+        for (int i = 0; i < fieldCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (fieldCount == MAX_FIELDS) {
+            throw new IllegalStateException("Too many recorder fields, can't register " + name);
+        }
+        names[fieldCount] = name;
+        return fieldCount++;
+    }
+
+    private static int[] gamepadFields(String prefix) {
+        return new int[] {
+                field(prefix + " left_stick_x"),
+                field(prefix + " left_stick_y"),
+                field(prefix + " right_stick_x"),
+                field(prefix + " right_stick_y"),
+                field(prefix + " left_trigger"),
+                field(prefix + " right_trigger"),
+                field(prefix + " buttons")
+        };
+    }
+
+    public static void set(int field, double value) {
+        values[field] = (float) value;
+    }
+
+    public static void set(int field, boolean value) {
+        values[field] = value ? 1 : 0;
+    }
+
+    /**
+     * @return value the field was last set to, recorded or not
+     */
+    public static double get(int field) {
+        return values[field];
+    }
+
+    /**
+     * Records both gamepads. The buttons are packed into a bit mask, see {@link FlightLog#BUTTONS} for the order.
+     */
+    public static void recordGamepads(Gamepad gamepad1, Gamepad gamepad2) {
+        recordGamepad(GAMEPAD1, gamepad1);
+        recordGamepad(GAMEPAD2, gamepad2);
+    }
+
+    private static void recordGamepad(int[] fields, Gamepad gamepad) {
+        set(fields[0], gamepad.left_stick_x);
+        set(fields[1], gamepad.left_stick_y);
+        set(fields[2], gamepad.right_stick_x);
+        set(fields[3], gamepad.right_stick_y);
+        set(fields[4], gamepad.left_trigger);
+        set(fields[5], gamepad.right_trigger);
+
+        int mask = bit(gamepad.a, 0) | bit(gamepad.b, 1) | bit(gamepad.x, 2) | bit(gamepad.y, 3)
+                | bit(gamepad.dpad_up, 4) | bit(gamepad.dpad_down, 5)
+                | bit(gamepad.dpad_left, 6) | bit(gamepad.dpad_right, 7)
+                | bit(gamepad.left_bumper, 8) | bit(gamepad.right_bumper, 9)
+                | bit(gamepad.left_stick_button, 10) | bit(gamepad.right_stick_button, 11)
+                | bit(gamepad.back, 12) | bit(gamepad.start, 13) | bit(gamepad.guide, 14);
+        set(fields[6], mask);
+    }
+
+    private static int bit(boolean button, int index) {
+        return button ? 1 << index : 0;
+    }
+
+    /**
+     * Creates the log file and fixes the schema to the fields registered so far. Every field starts at 0, so
+     * nothing carries over from the last OpMode. Does nothing if disabled.
+     */
+    public static synchronized void start(String opModeName) {
+        stop();
+        Arrays.fill(values, 0);
+        if (!enabled || capacity <= 0) {
+            return;
+        }
+
+        recordedFields = fieldCount;
+        recordSize = 8 + 4 * recordedFields;
+        recordCapacity = capacity;
+
+        int headerSize = NAMES_OFFSET;
+        byte[][] encodedNames = new byte[recordedFields][];
+        for (int i = 0; i < recordedFields; i++) {
+            encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            headerSize += 2 + encodedNames[i].length;
+        }
+        dataOffset = (headerSize + 7) / 8 * 8;
+
+        try {
+            LoggingUtil.keepNewest(LOG_TAG, keptLogs);
+            logFile = LoggingUtil.getLogFile(String.format(Locale.US,
+                    "%s-Flight-%d.bin", opModeName, System.currentTimeMillis()), LOG_TAG);
+            file = new RandomAccessFile(logFile, "rw");
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    dataOffset + (long) recordSize * recordCapacity);
+        } catch (IOException e) {
+            stop();
+            return;
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(recordedFields);
+        buffer.putInt(recordSize);
+        buffer.putInt(recordCapacity);
+        buffer.putLong(0);
+        for (byte[] name : encodedNames) {
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+        }
+
+        // touch every page now so the first pass through the file doesn't fault in the loop
+        for (int i = dataOffset; i < buffer.capacity(); i += 4096) {
+            buffer.put(i, (byte) 0);
+        }
+
+        records = 0;
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * Appends one record with the current value of every field
+     */
+    public static void commit() {
+        if (buffer == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        int index = dataOffset + (int) (records % recordCapacity) * recordSize;
+        buffer.putLong(index, now - startTime);
+        index += 8;
+        for (int i = 0; i < recordedFields; i++) {
+            buffer.putFloat(index, values[i]);
+            index += 4;
+        }
+
+        // only counted once the record is complete, so a log cut off mid write is still consistent
+        records++;
+        buffer.putLong(RECORDS_OFFSET, records);
+    }
+
+    /**
+     * Flushes and closes the log file, after which the log quota may delete it
+     */
+    public static synchronized void stop() {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            file = null;
+        }
+        if (logFile != null) {
+            LoggingUtil.release(logFile);
+            logFile = null;
+        }
+    }
+
+    public static boolean isRecording() {
+        return buffer != null;
+    }
+
+    /**
+     * @return number of records committed since start(), including ones that have been overwritten
+     */
+    public static long getRecords() {
+        return records;
+    }
+}
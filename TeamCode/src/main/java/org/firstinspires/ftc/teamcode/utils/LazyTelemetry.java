@@ -0,0 +1,572 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Telemetry that only stores what is added, as primitives where it can, and leaves the formatting to a background
+ * thread. {@link #update()} only hands a frame over when {@link #getMsTransmissionInterval()} has passed since the
+ * last one; every other frame is thrown away without ever being turned into strings. The background thread
+ * replays the frame into every sink (e.g. the driver station and dashboard telemetry) and updates them. The sinks'
+ * own transmission interval is set to 0 so they send every frame they are given.
+ * <p>
+ * Only primitives, and format arguments that are boxed primitives, strings or enums, are formatted on the
+ * background thread. Any other object is turned into a string, and a {@link Func} is evaluated, when it is added,
+ * so the loop can keep changing it. Frames that won't be sent skip that too.
+ * <p>
+ * Adding an item with the caption of one already in the frame replaces it, so a task that runs more often than
+ * update() is called doesn't repeat its items.
+ * <p>
+ * addData() and addLine() return an item that changes its slot in the current frame, so calls can be chained.
+ * Frames are always cleared by update(), so retaining items does nothing.
+ * <p>
+ * {@link #wrap(Telemetry)} lets a subsystem use the primitive overloads with any telemetry it is given.
+ */
+public class LazyTelemetry implements Telemetry {
+    private static final int MAX_ITEMS = 64;
+    private static final byte LINE = 0, DOUBLE = 1, INTEGER = 2, BOOLEAN = 3, OBJECT = 4, FORMAT = 5;
+
+    private static class Frame {
+        final String[] captions = new String[MAX_ITEMS];
+        final byte[] types = new byte[MAX_ITEMS];
+        final double[] values = new double[MAX_ITEMS];
+        final Object[] objects = new Object[MAX_ITEMS];
+        final Object[][] args = new Object[MAX_ITEMS][];
+        int count = 0;
+        // whether the frame will be sent, decided when its first item is added
+        boolean due = false;
+    }
+
+    /**
+     * What addData() and addLine() return. Setting a value snapshots it the same way adding it does.
+     */
+    private class Slot implements Item, Line {
+        private final int index;
+
+        Slot(int index) {
+            this.index = index;
+        }
+
+        private boolean isAdded() {
+            return index >= 0 && index < current.count;
+        }
+
+        @Override
+        public String getCaption() {
+            return isAdded() ? current.captions[index] : "";
+        }
+
+        @Override
+        public Item setCaption(String caption) {
+            if (isAdded()) {
+                current.captions[index] = caption;
+            }
+            return this;
+        }
+
+        @Override
+        public Item setValue(String format, Object... args) {
+            if (isAdded()) {
+                setFormat(index, format, args);
+            }
+            return this;
+        }
+
+        @Override
+        public Item setValue(Object value) {
+            if (isAdded()) {
+                setObject(index, value);
+            }
+            return this;
+        }
+
+        @Override
+        public <T> Item setValue(Func<T> valueProducer) {
+            if (isAdded() && current.due) {
+                setObject(index, valueProducer.value());
+            }
+            return this;
+        }
+
+        @Override
+        public <T> Item setValue(String format, Func<T> valueProducer) {
+            if (isAdded() && current.due) {
+                setFormat(index, format, new Object[] {valueProducer.value()});
+            }
+            return this;
+        }
+
+        @Override
+        public Item setRetained(Boolean retained) {
+            return this;
+        }
+
+        @Override
+        public boolean isRetained() {
+            return false;
+        }
+
+        @Override
+        public Item addData(String caption, String format, Object... args) {
+            return LazyTelemetry.this.addData(caption, format, args);
+        }
+
+        @Override
+        public Item addData(String caption, Object value) {
+            return LazyTelemetry.this.addData(caption, value);
+        }
+
+        @Override
+        public <T> Item addData(String caption, Func<T> valueProducer) {
+            return LazyTelemetry.this.addData(caption, valueProducer);
+        }
+
+        @Override
+        public <T> Item addData(String caption, String format, Func<T> valueProducer) {
+            return LazyTelemetry.this.addData(caption, format, valueProducer);
+        }
+    }
+
+    private final Telemetry[] sinks;
+    private final boolean forwarding;
+
+    // only touched by the caller
+    private Frame current = new Frame();
+    private final Slot[] slots = new Slot[MAX_ITEMS];
+    private final Slot dropped = new Slot(-1);
+    private long lastTransmit = 0;
+    private volatile long transmitted = 0;
+    private volatile long skipped = 0;
+
+    // handed from the caller to the formatter, guarded by lock
+    private final Object lock = new Object();
+    private Frame pending = new Frame();
+    private boolean hasPending = false;
+
+    private Frame formatting = new Frame();
+    private Thread formatter = null;
+    private volatile int msTransmissionInterval = 250;
+
+    /**
+     * @param sinks where the frames are sent, e.g. the OpMode's telemetry and the dashboard's
+     */
+    public LazyTelemetry(Telemetry... sinks) {
+        this(sinks, false);
+        for (int i = 0; i < MAX_ITEMS; i++) {
+            slots[i] = new Slot(i);
+        }
+        for (Telemetry sink : sinks) {
+            sink.setMsTransmissionInterval(0);
+        }
+    }
+
+    private LazyTelemetry(Telemetry[] sinks, boolean forwarding) {
+        this.sinks = sinks;
+        this.forwarding = forwarding;
+    }
+
+    /**
+     * @return the telemetry itself if it is already lazy, otherwise a wrapper that passes every call straight
+     * through to it like before
+     */
+    public static LazyTelemetry wrap(Telemetry telemetry) {
+        if (telemetry instanceof LazyTelemetry) {
+            return (LazyTelemetry) telemetry;
+        }
+        return new LazyTelemetry(new Telemetry[] {telemetry}, true);
+    }
+
+    private boolean isDue(long now) {
+        return now - lastTransmit >= msTransmissionInterval * 1000000L;
+    }
+
+    /**
+     * @return index of the item in the current frame, or -1 if it is full
+     */
+    private int add(String caption, byte type) {
+        Frame frame = current;
+        if (frame.count == 0) {
+            frame.due = isDue(System.nanoTime());
+        }
+        int i = type == LINE ? -1 : indexOf(frame, caption);
+        if (i < 0) {
+            if (frame.count == MAX_ITEMS) {
+                return -1;
+            }
+            i = frame.count++;
+        }
+        frame.captions[i] = caption;
+        frame.types[i] = type;
+        frame.objects[i] = null;
+        frame.args[i] = null;
+        return i;
+    }
+
+    private static int indexOf(Frame frame, String caption) {
+        for (int i = 0; i < frame.count; i++) {
+            if (frame.types[i] != LINE && caption != null && caption.equals(frame.captions[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Slot slot(int i) {
+        return i < 0 ? dropped : slots[i];
+    }
+
+    private void setObject(int i, Object value) {
+        current.types[i] = OBJECT;
+        current.objects[i] = current.due ? String.valueOf(value) : null;
+        current.args[i] = null;
+    }
+
+    private void setFormat(int i, String format, Object[] args) {
+        if (!current.due) {
+            setObject(i, null);
+        } else if (isImmutable(args)) {
+            current.types[i] = FORMAT;
+            current.objects[i] = format;
+            current.args[i] = args;
+        } else {
+            setObject(i, String.format(format, args));
+        }
+    }
+
+    /**
+     * @return whether the arguments can be formatted on another thread without seeing later changes
+     */
+    private static boolean isImmutable(Object[] args) {
+        if (args == null) {
+            return true;
+        }
+        for (Object arg : args) {
+            if (!(arg == null || arg instanceof String || arg instanceof Double || arg instanceof Integer
+                    || arg instanceof Long || arg instanceof Float || arg instanceof Boolean || arg instanceof Short
+                    || arg instanceof Byte || arg instanceof Character || arg instanceof Enum)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Item addData(String caption, double value) {
+        if (forwarding) {
+            return sinks[0].addData(caption, value);
+        }
+        int i = add(caption, DOUBLE);
+        if (i >= 0) {
+            current.values[i] = value;
+        }
+        return slot(i);
+    }
+
+    public Item addData(String caption, int value) {
+        if (forwarding) {
+            return sinks[0].addData(caption, value);
+        }
+        int i = add(caption, INTEGER);
+        if (i >= 0) {
+            current.values[i] = value;
+        }
+        return slot(i);
+    }
+
+    public Item addData(String caption, boolean value) {
+        if (forwarding) {
+            return sinks[0].addData(caption, value);
+        }
+        int i = add(caption, BOOLEAN);
+        if (i >= 0) {
+            current.values[i] = value ? 1 : 0;
+        }
+        return slot(i);
+    }
+
+    @Override
+    public Item addData(String caption, Object value) {
+        if (forwarding) {
+            return sinks[0].addData(caption, value);
+        }
+        int i = add(caption, OBJECT);
+        if (i >= 0) {
+            setObject(i, value);
+        }
+        return slot(i);
+    }
+
+    @Override
+    public Item addData(String caption, String format, Object... args) {
+        if (forwarding) {
+            return sinks[0].addData(caption, format, args);
+        }
+        int i = add(caption, FORMAT);
+        if (i >= 0) {
+            setFormat(i, format, args);
+        }
+        return slot(i);
+    }
+
+    @Override
+    public <T> Item addData(String caption, Func<T> valueProducer) {
+        if (forwarding) {
+            return sinks[0].addData(caption, valueProducer);
+        }
+        int i = add(caption, OBJECT);
+        if (i >= 0) {
+            setObject(i, current.due ? valueProducer.value() : null);
+        }
+        return slot(i);
+    }
+
+    @Override
+    public <T> Item addData(String caption, String format, Func<T> valueProducer) {
+        if (forwarding) {
+            return sinks[0].addData(caption, format, valueProducer);
+        }
+        int i = add(caption, FORMAT);
+        if (i >= 0) {
+            setFormat(i, format, current.due ? new Object[] {valueProducer.value()} : null);
+        }
+        return slot(i);
+    }
+
+    @Override
+    public Line addLine() {
+        return addLine("");
+    }
+
+    @Override
+    public Line addLine(String lineCaption) {
+        if (forwarding) {
+            return sinks[0].addLine(lineCaption);
+        }
+        return slot(add(lineCaption, LINE));
+    }
+
+    @Override
+    public boolean removeItem(Item item) {
+        return forwarding && sinks[0].removeItem(item);
+    }
+
+    @Override
+    public boolean removeLine(Line line) {
+        return forwarding && sinks[0].removeLine(line);
+    }
+
+    @Override
+    public void clear() {
+        if (forwarding) {
+            sinks[0].clear();
+            return;
+        }
+        current.count = 0;
+    }
+
+    @Override
+    public void clearAll() {
+        for (Telemetry sink : sinks) {
+            sink.clearAll();
+        }
+        current.count = 0;
+    }
+
+    /**
+     * Hands the frame to the formatter if one is due and clears it
+     */
+    @Override
+    public boolean update() {
+        if (forwarding) {
+            return sinks[0].update();
+        }
+
+        long now = System.nanoTime();
+        if (current.count > 0 ? current.due : isDue(now)) {
+            lastTransmit = now;
+            synchronized (lock) {
+                // the formatter never got to the previous frame
+                if (hasPending) {
+                    skipped++;
+                }
+                Frame frame = pending;
+                pending = current;
+                current = frame;
+                hasPending = true;
+                lock.notifyAll();
+            }
+            transmitted++;
+
+            if (formatter == null) {
+                formatter = new Thread(this::format, "TelemetryFormatter");
+                formatter.setDaemon(true);
+                formatter.start();
+            }
+        } else {
+            skipped++;
+        }
+
+        current.count = 0;
+        return true;
+    }
+
+    private void format() {
+        while (!Thread.currentThread().isInterrupted()) {
+            synchronized (lock) {
+                try {
+                    while (!hasPending) {
+                        lock.wait();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Frame frame = formatting;
+                formatting = pending;
+                pending = frame;
+                hasPending = false;
+            }
+
+            for (Telemetry sink : sinks) {
+                for (int i = 0; i < formatting.count; i++) {
+                    send(sink, formatting, i);
+                }
+                sink.update();
+            }
+        }
+    }
+
+    private static void send(Telemetry sink, Frame frame, int i) {
+        String caption = frame.captions[i];
+        switch (frame.types[i]) {
+            case LINE:
+                sink.addLine(caption);
+                break;
+            case DOUBLE:
+                sink.addData(caption, frame.values[i]);
+                break;
+            case INTEGER:
+                sink.addData(caption, (int) frame.values[i]);
+                break;
+            case BOOLEAN:
+                sink.addData(caption, frame.values[i] != 0);
+                break;
+            case OBJECT:
+                sink.addData(caption, frame.objects[i]);
+                break;
+            case FORMAT:
+                sink.addData(caption, (String) frame.objects[i], frame.args[i]);
+                break;
+        }
+    }
+
+    /**
+     * Stops the formatter thread, frames updated after this are dropped
+     */
+    public void close() {
+        if (formatter != null) {
+            formatter.interrupt();
+            formatter = null;
+        }
+    }
+
+    /**
+     * @return number of frames handed to the formatter
+     */
+    public long getTransmitted() {
+        return transmitted;
+    }
+
+    /**
+     * @return number of frames that were dropped without being formatted
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public Object addAction(Runnable action) {
+        return sinks[0].addAction(action);
+    }
+
+    @Override
+    public boolean removeAction(Object token) {
+        return sinks[0].removeAction(token);
+    }
+
+    @Override
+    public void speak(String text) {
+        sinks[0].speak(text);
+    }
+
+    @Override
+    public void speak(String text, String languageCode, String countryCode) {
+        sinks[0].speak(text, languageCode, countryCode);
+    }
+
+    @Override
+    public boolean isAutoClear() {
+        return forwarding ? sinks[0].isAutoClear() : true;
+    }
+
+    /**
+     * Passed through when wrapping, lazy frames are always cleared
+     */
+    @Override
+    public void setAutoClear(boolean autoClear) {
+        if (forwarding) {
+            sinks[0].setAutoClear(autoClear);
+        }
+    }
+
+    @Override
+    public int getMsTransmissionInterval() {
+        return forwarding ? sinks[0].getMsTransmissionInterval() : msTransmissionInterval;
+    }
+
+    /**
+     * Passed through when wrapping, otherwise only this throttles and the sinks send every frame they are given
+     */
+    @Override
+    public void setMsTransmissionInterval(int msTransmissionInterval) {
+        if (forwarding) {
+            sinks[0].setMsTransmissionInterval(msTransmissionInterval);
+            return;
+        }
+        this.msTransmissionInterval = msTransmissionInterval;
+    }
+
+    @Override
+    public String getItemSeparator() {
+        return sinks[0].getItemSeparator();
+    }
+
+    @Override
+    public void setItemSeparator(String itemSeparator) {
+        for (Telemetry sink : sinks) {
+            sink.setItemSeparator(itemSeparator);
+        }
+    }
+
+    @Override
+    public String getCaptionValueSeparator() {
+        return sinks[0].getCaptionValueSeparator();
+    }
+
+    @Override
+    public void setCaptionValueSeparator(String captionValueSeparator) {
+        for (Telemetry sink : sinks) {
+            sink.setCaptionValueSeparator(captionValueSeparator);
+        }
+    }
+
+    @Override
+    public void setDisplayFormat(DisplayFormat displayFormat) {
+        for (Telemetry sink : sinks) {
+            sink.setDisplayFormat(displayFormat);
+        }
+    }
+
+    @Override
+    public Log log() {
+        return sinks[0].log();
+    }
+}
@@ -0,0 +1,111 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * Fixed-size histogram of durations with logarithmic buckets. Every power of two (in microseconds) is split into
+ * 8 sub-buckets, so any recorded value is off by at most 12.5% and the whole range from 1us to over an hour fits
+ * in a preallocated array. Recording never allocates.
+ */
+public class LogHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    public static final int BUCKET_COUNT = SUB_BUCKETS * 30;
+
+    private final int[] counts = new int[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long maxNanos = 0;
+    private long sumNanos = 0;
+
+    public void record(long nanos) {
+        counts[bucketOf(nanos)]++;
+        totalCount++;
+        sumNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+        totalCount = 0;
+        maxNanos = 0;
+        sumNanos = 0;
+    }
+
+    static int bucketOf(long nanos) {
+        long micros = nanos / 1000;
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        int bucket = (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @return lower bound of a bucket in microseconds
+     */
+    public static long bucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return upper bound (exclusive) of a bucket in microseconds
+     */
+    public static long bucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return upper bound of the bucket containing the percentile, in milliseconds
+     */
+    public double getPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(percentile * totalCount);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target && seen > 0) {
+                return Math.min(bucketUpperBound(i) / 1000.0, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return largest recorded value in milliseconds
+     */
+    public double getMax() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * @return mean of all recorded values in milliseconds
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : sumNanos / 1e6 / totalCount;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public int getBucketCount(int bucket) {
+        return counts[bucket];
+    }
+}
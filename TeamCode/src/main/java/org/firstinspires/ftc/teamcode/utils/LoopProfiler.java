@@ -0,0 +1,207 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LoggingUtil;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Scoped timer for finding out what is eating the loop. Sections are registered once by name, usually into a
+ * static final field, and then wrapped with {@link #start(int)} / {@link #end(int)}:
+ * <pre>
+ *     private static final int PERIODIC = LoopProfiler.section("lift");
+ *     ...
+ *     LoopProfiler.start(PERIODIC);
+ *     ...
+ *     LoopProfiler.end(PERIODIC);
+ * </pre>
+ * Sections nest: a section started while another one is open is reported as its child. {@link #periodic()}
+ * must be called once per loop after every section has ended; it times the whole loop and puts p50/p95/p99/max
+ * of every section on the dashboard at {@link #publishRate}. Timing and recording never allocate.
+ */
+@Config
+public class LoopProfiler {
+    // Config parameters
+    public static double publishRate = 2; // Hz
+
+    public static final int MAX_SECTIONS = 32;
+    private static final int MAX_DEPTH = 16;
+
+    /**
+     * Root section, timed from one {@link #periodic()} call to the next
+     */
+    public static final int LOOP = 0;
+    private static final int NO_PARENT = -1;
+    private static final int NO_CHANNEL = -1;
+
+    private static final String[] names = new String[MAX_SECTIONS];
+    private static final int[] channels = new int[MAX_SECTIONS];
+    private static final int[] parents = new int[MAX_SECTIONS];
+    private static final LogHistogram[] histograms = new LogHistogram[MAX_SECTIONS];
+    private static int sectionCount = 0;
+
+    private static final int[] stackIds = new int[MAX_DEPTH];
+    private static final long[] stackStarts = new long[MAX_DEPTH];
+    private static int depth = 0;
+
+    private static long loopStart = -1;
+    private static final ElapsedTime publishTimer = new ElapsedTime();
+
+    static {
+        for (int i = 0; i < MAX_SECTIONS; i++) {
+            histograms[i] = new LogHistogram();
+            parents[i] = NO_PARENT;
+            channels[i] = NO_CHANNEL;
+        }
+        section("loop");
+    }
+
+    /**
+     * Registers a section, or looks up an existing one with the same name
+     *
+     * @return id to pass to {@link #start(int)} and {@link #end(int)}
+     */
+    public static synchronized int section(String name) {
+        for (int i = 0; i < sectionCount; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        if (sectionCount == MAX_SECTIONS) {
+            throw new IllegalStateException("Too many profiler sections, can't register " + name);
+        }
+        names[sectionCount] = name;
+        parents[sectionCount] = sectionCount == LOOP ? NO_PARENT : LOOP;
+        return sectionCount++;
+    }
+
+    public static void start(int id) {
+        if (depth < MAX_DEPTH) {
+            int parent = depth > 0 ? stackIds[depth - 1] : LOOP;
+            if (parents[id] != parent && id != LOOP) {
+                parents[id] = parent;
+                channels[id] = NO_CHANNEL;
+            }
+            stackIds[depth] = id;
+            stackStarts[depth] = System.nanoTime();
+        }
+        depth++;
+    }
+
+    public static void end(int id) {
+        long now = System.nanoTime();
+        if (depth == 0) {
+            return;
+        }
+        depth--;
+        // a mismatched end means a section was left open, its timing is meaningless so it is dropped
+        if (depth < MAX_DEPTH && stackIds[depth] == id) {
+            histograms[id].record(now - stackStarts[depth]);
+        }
+    }
+
+    /**
+     * Records the loop time and publishes the summary when due. Any section still open is discarded.
+     */
+    public static void periodic() {
+        long now = System.nanoTime();
+        if (loopStart >= 0) {
+            histograms[LOOP].record(now - loopStart);
+        }
+        loopStart = now;
+        depth = 0;
+
+        if (publishTimer.seconds() < 1 / publishRate) {
+            return;
+        }
+        publishTimer.reset();
+
+        for (int i = 0; i < sectionCount; i++) {
+            LogHistogram histogram = histograms[i];
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            Dashboard.set(getChannel(i), String.format(Locale.US, "%.2f / %.2f / %.2f / %.2f ms",
+                    histogram.getPercentile(0.5), histogram.getPercentile(0.95),
+                    histogram.getPercentile(0.99), histogram.getMax()));
+        }
+    }
+
+    /**
+     * Clears every histogram but keeps the registered sections. Profiler state is static and survives between
+     * OpModes, so this should be called right after waitForStart().
+     */
+    public static void reset() {
+        for (int i = 0; i < MAX_SECTIONS; i++) {
+            histograms[i].reset();
+        }
+        depth = 0;
+        loopStart = -1;
+        publishTimer.reset();
+    }
+
+    public static LogHistogram getHistogram(int id) {
+        return histograms[id];
+    }
+
+    /**
+     * @return section name prefixed with the names of its parents, e.g. "loop/drive/follower"
+     */
+    public static String getPath(int id) {
+        if (parents[id] == NO_PARENT) {
+            return names[id];
+        }
+        return getPath(parents[id]) + "/" + names[id];
+    }
+
+    private static int getChannel(int id) {
+        if (channels[id] == NO_CHANNEL) {
+            channels[id] = Dashboard.register("profile " + getPath(id));
+        }
+        return channels[id];
+    }
+
+    /**
+     * Writes a summary and the full histogram of every section to two CSV files in the log folder
+     */
+    public static void dump(String opModeName) {
+        long time = System.currentTimeMillis();
+
+        File summary = LoggingUtil.getLogFile(String.format(Locale.US, "%s-Profile-%d.csv", opModeName, time));
+        try (PrintWriter pw = new PrintWriter(summary)) {
+            pw.println("section,count,mean,p50,p95,p99,max");
+            for (int i = 0; i < sectionCount; i++) {
+                LogHistogram histogram = histograms[i];
+                pw.println(String.format(Locale.US, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f",
+                        getPath(i), histogram.getCount(), histogram.getMean(),
+                        histogram.getPercentile(0.5), histogram.getPercentile(0.95),
+                        histogram.getPercentile(0.99), histogram.getMax()));
+            }
+        } catch (FileNotFoundException e) {
+            // ignore
+        }
+        LoggingUtil.release(summary);
+
+        File histogramFile = LoggingUtil.getLogFile(String.format(Locale.US, "%s-Histograms-%d.csv", opModeName, time));
+        try (PrintWriter pw = new PrintWriter(histogramFile)) {
+            pw.println("section,lowerUs,upperUs,count");
+            for (int i = 0; i < sectionCount; i++) {
+                LogHistogram histogram = histograms[i];
+                for (int bucket = 0; bucket < LogHistogram.BUCKET_COUNT; bucket++) {
+                    if (histogram.getBucketCount(bucket) > 0) {
+                        pw.println(getPath(i) + "," + LogHistogram.bucketLowerBound(bucket) + ","
+                                + LogHistogram.bucketUpperBound(bucket) + "," + histogram.getBucketCount(bucket));
+                    }
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // ignore
+        }
+        LoggingUtil.release(histogramFile);
+    }
+}
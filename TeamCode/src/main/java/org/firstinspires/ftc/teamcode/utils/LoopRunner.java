@@ -0,0 +1,139 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.dashboard.config.Config;
+
+/**
+ * Paces a loop to a fixed period. Call {@link #sync()} once at the top of every loop; it sleeps until the next
+ * period starts and returns the measured time since the previous cycle.
+ * <p>
+ * Most of the wait is a plain sleep, and the last {@link #spinTime} is spent yielding so that the wake-up isn't
+ * at the mercy of the scheduler. A loop that takes longer than the period is counted as an overrun and the
+ * schedule restarts from that point instead of trying to catch up with a burst of short cycles.
+ * <p>
+ * The returned dt is meant to be passed down to the subsystems, see {@link MultiRateExecutor#run(double)}. The
+ * default period matches the 20ms the FTCLib profiled controller in Intake assumes per call, since it can't be
+ * given a dt. A loop that needs to run faster, e.g. one running tasks at different rates, can be given its own
+ * period.
+ */
+@Config
+public class LoopRunner {
+    // Config parameters
+    public static double targetPeriod = 0.02; // seconds, <= 0 runs as fast as possible
+    public static double spinTime = 0.002; // seconds
+
+    private static final int SYNC = LoopProfiler.section("sync");
+    private static final int LOOP_DT = Dashboard.register("loop dt", 1e-4);
+    private static final int LOOP_OVERRUNS = Dashboard.register("loop overruns");
+    private static final int RECORDED_DT = FlightRecorder.field("loop dt");
+
+    private final LogHistogram jitter = new LogHistogram();
+    private final double period;
+
+    private long deadline = -1;
+    private long lastCycle = -1;
+    private double dt = 0;
+    private int overruns = 0;
+    private int cycles = 0;
+
+    /**
+     * Runs at {@link #targetPeriod}, which can be changed from the dashboard while it runs
+     */
+    public LoopRunner() {
+        this(Double.NaN);
+    }
+
+    /**
+     * @param period seconds, used instead of {@link #targetPeriod}
+     */
+    public LoopRunner(double period) {
+        this.period = period;
+    }
+
+    /**
+     * @return target seconds per cycle
+     */
+    public double getPeriod() {
+        return Double.isNaN(period) ? targetPeriod : period;
+    }
+
+    /**
+     * Starts the schedule, should be called right after waitForStart()
+     */
+    public void start() {
+        lastCycle = System.nanoTime();
+        deadline = lastCycle;
+        dt = 0;
+        overruns = 0;
+        cycles = 0;
+        jitter.reset();
+    }
+
+    /**
+     * @return measured time in seconds since the previous call
+     */
+    public double sync() throws InterruptedException {
+        if (deadline < 0) {
+            start();
+        }
+        LoopProfiler.start(SYNC);
+
+        long period = (long) (getPeriod() * 1e9);
+        deadline += period;
+
+        long now = System.nanoTime();
+        if (period <= 0) {
+            deadline = now;
+        } else if (now > deadline) {
+            if (cycles > 0) {
+                overruns++;
+            }
+            deadline = now;
+        } else {
+            long spin = (long) (spinTime * 1e9);
+            long sleep = deadline - now - spin;
+            if (sleep > 0) {
+                Thread.sleep(sleep / 1000000, (int) (sleep % 1000000));
+            }
+            while ((now = System.nanoTime()) < deadline) {
+                Thread.yield();
+            }
+            jitter.record(now - deadline);
+        }
+
+        dt = (now - lastCycle) / 1e9;
+        lastCycle = now;
+        cycles++;
+
+        LoopProfiler.end(SYNC);
+
+        Dashboard.set(LOOP_DT, dt);
+        Dashboard.set(LOOP_OVERRUNS, overruns);
+        FlightRecorder.set(RECORDED_DT, dt);
+        return dt;
+    }
+
+    /**
+     * @return measured time in seconds between the last two cycles
+     */
+    public double getDt() {
+        return dt;
+    }
+
+    /**
+     * @return number of cycles that started late because the previous one took longer than the period
+     */
+    public int getOverruns() {
+        return overruns;
+    }
+
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return how late each on-time cycle woke up, overrun cycles aren't included
+     */
+    public LogHistogram getJitter() {
+        return jitter;
+    }
+}
@@ -0,0 +1,213 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.util.ElapsedTime;
+
+import org.firstinspires.ftc.teamcode.autonomous.roadrunner.util.LoggingUtil;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters, gauges and timers for things that happen on the robot, tagged by subsystem. Metrics are registered
+ * once, usually into a static final field, and updated wherever the event happens:
+ * <pre>
+ *     private static final int JAMS = Metrics.counter("lift", "jams");
+ *     ...
+ *     Metrics.increment(JAMS);
+ * </pre>
+ * Updates are atomic and never allocate or lock, so they are safe from the vision and sensor threads.
+ * {@link #periodic()} snapshots every metric onto the dashboard and into the flight log at {@link #publishRate},
+ * and {@link #dump(String)} writes the totals of a run to a CSV file so runs can be compared.
+ */
+@Config
+public class Metrics {
+    // Config parameters
+    public static double publishRate = 2; // Hz
+
+    public static final int MAX_METRICS = 64;
+    private static final byte COUNTER = 1, GAUGE = 2, TIMER = 3;
+
+    private static final String[] subsystems = new String[MAX_METRICS];
+    private static final String[] names = new String[MAX_METRICS];
+    private static final byte[] types = new byte[MAX_METRICS];
+    private static final int[] channels = new int[MAX_METRICS];
+    private static final int[] fields = new int[MAX_METRICS];
+    private static final int[] timeChannels = new int[MAX_METRICS];
+    private static final int[] timeFields = new int[MAX_METRICS];
+    private static int metricCount = 0;
+
+    // counter value, gauge value as double bits, or timer count
+    private static final AtomicLongArray values = new AtomicLongArray(MAX_METRICS);
+    // timers only, in ns
+    private static final AtomicLongArray totals = new AtomicLongArray(MAX_METRICS);
+    private static final AtomicLongArray maxima = new AtomicLongArray(MAX_METRICS);
+
+    private static final ElapsedTime publishTimer = new Clock.Timer();
+
+    /**
+     * Registers a count of events, or looks up an existing one
+     *
+     * @return id to pass to {@link #increment(int)}
+     */
+    public static int counter(String subsystem, String name) {
+        return register(subsystem, name, COUNTER);
+    }
+
+    /**
+     * Registers a value that is set rather than accumulated, or looks up an existing one
+     *
+     * @return id to pass to {@link #set(int, double)}
+     */
+    public static int gauge(String subsystem, String name) {
+        return register(subsystem, name, GAUGE);
+    }
+
+    /**
+     * Registers a count and duration of events, or looks up an existing one
+     *
+     * @return id to pass to {@link #record(int, long)}
+     */
+    public static int timer(String subsystem, String name) {
+        return register(subsystem, name, TIMER);
+    }
+
+    private static synchronized int register(String subsystem, String name, byte type) {
+        for (int i = 0; i < metricCount; i++) {
+            if (subsystems[i].equals(subsystem) && names[i].equals(name)) {
+                if (types[i] != type) {
+                    throw new IllegalStateException("Metric " + getKey(i) + " is already registered as another type");
+                }
+                return i;
+            }
+        }
+        if (metricCount == MAX_METRICS) {
+            throw new IllegalStateException("Too many metrics, can't register " + subsystem + " " + name);
+        }
+        subsystems[metricCount] = subsystem;
+        names[metricCount] = name;
+        types[metricCount] = type;
+        channels[metricCount] = Dashboard.register(getKey(metricCount));
+        fields[metricCount] = FlightRecorder.field(getKey(metricCount));
+        if (type == TIMER) {
+            timeChannels[metricCount] = Dashboard.register(getKey(metricCount) + " ms");
+            timeFields[metricCount] = FlightRecorder.field(getKey(metricCount) + " ms");
+        }
+        return metricCount++;
+    }
+
+    public static void increment(int id) {
+        values.incrementAndGet(id);
+    }
+
+    public static void add(int id, long count) {
+        values.addAndGet(id, count);
+    }
+
+    public static void set(int id, double value) {
+        values.set(id, Double.doubleToRawLongBits(value));
+    }
+
+    public static void record(int id, long nanos) {
+        values.incrementAndGet(id);
+        totals.addAndGet(id, nanos);
+        long max = maxima.get(id);
+        while (nanos > max && !maxima.compareAndSet(id, max, nanos)) {
+            max = maxima.get(id);
+        }
+    }
+
+    /**
+     * @return counter value or timer count
+     */
+    public static long getCount(int id) {
+        return types[id] == GAUGE ? 0 : values.get(id);
+    }
+
+    /**
+     * @return gauge value, counter value, or mean timer duration in ms
+     */
+    public static double getValue(int id) {
+        switch (types[id]) {
+            case GAUGE:
+                return Double.longBitsToDouble(values.get(id));
+            case TIMER:
+                long count = values.get(id);
+                return count == 0 ? 0 : totals.get(id) / 1e6 / count;
+            default:
+                return values.get(id);
+        }
+    }
+
+    /**
+     * @return longest timer duration in ms
+     */
+    public static double getMax(int id) {
+        return maxima.get(id) / 1e6;
+    }
+
+    /**
+     * @return subsystem and name, e.g. "lift jams"
+     */
+    public static String getKey(int id) {
+        return subsystems[id] + " " + names[id];
+    }
+
+    /**
+     * Puts every metric on the dashboard and into the flight log when due. Should be called once per loop.
+     */
+    public static void periodic() {
+        if (publishTimer.seconds() < 1 / publishRate) {
+            return;
+        }
+        publishTimer.reset();
+
+        for (int i = 0; i < metricCount; i++) {
+            if (types[i] == TIMER) {
+                Dashboard.set(channels[i], (double) getCount(i));
+                FlightRecorder.set(fields[i], getCount(i));
+                Dashboard.set(timeChannels[i], getValue(i));
+                FlightRecorder.set(timeFields[i], getValue(i));
+            } else {
+                Dashboard.set(channels[i], getValue(i));
+                FlightRecorder.set(fields[i], getValue(i));
+            }
+        }
+    }
+
+    /**
+     * Zeroes every metric but keeps the registrations. Metrics are static and survive between OpModes, so this
+     * should be called first thing in the OpMode, before the init loop, so that what happens during init is
+     * counted too.
+     */
+    public static void reset() {
+        for (int i = 0; i < MAX_METRICS; i++) {
+            values.set(i, 0);
+            totals.set(i, 0);
+            maxima.set(i, 0);
+        }
+        publishTimer.reset();
+    }
+
+    /**
+     * Writes the value of every metric to a CSV file in the log folder
+     */
+    public static void dump(String opModeName) {
+        File file = LoggingUtil.getLogFile(
+                String.format(Locale.US, "%s-Metrics-%d.csv", opModeName, System.currentTimeMillis()));
+        try (PrintWriter pw = new PrintWriter(file)) {
+            pw.println("subsystem,metric,type,count,value,max");
+            for (int i = 0; i < metricCount; i++) {
+                String type = types[i] == COUNTER ? "counter" : types[i] == GAUGE ? "gauge" : "timer";
+                pw.println(String.format(Locale.US, "%s,%s,%s,%d,%.3f,%.3f", subsystems[i], names[i], type,
+                        getCount(i), getValue(i), types[i] == TIMER ? getMax(i) : 0));
+            }
+        } catch (FileNotFoundException e) {
+            // ignore
+        }
+        LoggingUtil.release(file);
+    }
+}
@@ -4,10 +4,16 @@ public class MotionConstraint {
     public double maxVelo;
     public double maxAccel;
     public double maxDecel;
+    public double maxJerk; // 0 for no jerk limit
 
     public MotionConstraint(double maxVelo, double maxAccel, double maxDecel) {
+        this(maxVelo, maxAccel, maxDecel, 0);
+    }
+
+    public MotionConstraint(double maxVelo, double maxAccel, double maxDecel, double maxJerk) {
         this.maxVelo = maxVelo;
         this.maxAccel = maxAccel;
         this.maxDecel = maxDecel;
+        this.maxJerk = maxJerk;
     }
 }
@@ -0,0 +1,188 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.arcrobotics.ftclib.command.Subsystem;
+
+/**
+ * Runs tasks and subsystems at their own rates inside a single loop. Every task is registered with a target
+ * frequency and {@link #run(double)} is called once per loop; it runs each task that is due, most overdue first.
+ * <p>
+ * A {@link Task} is given the loop time that passed since it last ran, i.e. the sum of the dt of every loop in
+ * between, so its controllers integrate over the time that actually passed for it.
+ * <p>
+ * Once {@link #budgetFraction} of the loop's period has been used up, the remaining due tasks are
+ * left for the next loop. They keep their deadlines, so they are first in line then. At least one task runs per
+ * call, so nothing can starve. A task can't run more than once per loop, so its rate is capped by the loop rate.
+ * <p>
+ * Achieved rates are measured over one second windows and put on the dashboard.
+ */
+@Config
+public class MultiRateExecutor {
+    // Config parameters
+    public static double budgetFraction = 0.8;
+
+    private static final int MAX_TASKS = 16;
+    private static final double RATE_WINDOW = 1; // seconds
+    private static final int DEFERRED_TASKS = Dashboard.register("deferred tasks");
+
+    public interface Task {
+        /**
+         * @param dt seconds since the task last ran, measured by the loop
+         */
+        void run(double dt);
+    }
+
+    private final String[] names = new String[MAX_TASKS];
+    private final int[] rateChannels = new int[MAX_TASKS];
+    private final Task[] tasks = new Task[MAX_TASKS];
+    private final int[] sections = new int[MAX_TASKS];
+    private final long[] periods = new long[MAX_TASKS];
+    private final long[] deadlines = new long[MAX_TASKS];
+    private final long[] lastRun = new long[MAX_TASKS];
+    private final double[] elapsed = new double[MAX_TASKS];
+    private final int[] runCounts = new int[MAX_TASKS];
+    private final double[] achievedRates = new double[MAX_TASKS];
+    private int taskCount = 0;
+
+    private final LoopRunner loopRunner;
+
+    private long cycle = 0;
+    private long windowStart = -1;
+    private int deferred = 0;
+
+    /**
+     * @param loopRunner the loop {@link #run(double)} is called from, its period sets the budget
+     */
+    public MultiRateExecutor(LoopRunner loopRunner) {
+        this.loopRunner = loopRunner;
+    }
+
+    /**
+     * @param rate target frequency in Hz, anything <= 0 runs the task every loop
+     * @return id of the task
+     */
+    public int register(String name, double rate, Task task) {
+        if (taskCount == MAX_TASKS) {
+            throw new IllegalStateException("Too many tasks, can't register " + name);
+        }
+        names[taskCount] = name;
+        rateChannels[taskCount] = Dashboard.register(name + " rate", 0.5);
+        tasks[taskCount] = task;
+        sections[taskCount] = LoopProfiler.section(name);
+        lastRun[taskCount] = -1;
+        elapsed[taskCount] = 0;
+        setRate(taskCount, rate);
+        return taskCount++;
+    }
+
+    /**
+     * Registers a task that doesn't need the time since it last ran
+     */
+    public int register(String name, double rate, Runnable task) {
+        return register(name, rate, dt -> task.run());
+    }
+
+    /**
+     * Registers a subsystem's {@link Subsystem#periodic()}. The subsystem shouldn't also be registered with the
+     * CommandScheduler, or its periodic will run twice.
+     */
+    public int register(String name, double rate, Subsystem subsystem) {
+        return register(name, rate, subsystem::periodic);
+    }
+
+    public void setRate(int id, double rate) {
+        periods[id] = rate > 0 ? (long) (1e9 / rate) : 0;
+    }
+
+    /**
+     * @param dt seconds since the previous loop, e.g. from {@link LoopRunner#sync()}
+     */
+    public void run(double dt) {
+        long start = System.nanoTime();
+        long budget = (long) (loopRunner.getPeriod() * budgetFraction * 1e9);
+        cycle++;
+        for (int i = 0; i < taskCount; i++) {
+            elapsed[i] += dt;
+        }
+
+        if (windowStart < 0) {
+            windowStart = start;
+            for (int i = 0; i < taskCount; i++) {
+                deadlines[i] = start;
+            }
+        }
+
+        deferred = 0;
+        boolean ranAny = false;
+        while (true) {
+            // earliest deadline first among the tasks that haven't run this loop
+            int next = -1;
+            for (int i = 0; i < taskCount; i++) {
+                if (lastRun[i] != cycle && deadlines[i] <= start
+                        && (next < 0 || deadlines[i] < deadlines[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+
+            if (ranAny && budget > 0 && System.nanoTime() - start > budget) {
+                for (int i = 0; i < taskCount; i++) {
+                    if (lastRun[i] != cycle && deadlines[i] <= start) {
+                        deferred++;
+                    }
+                }
+                break;
+            }
+
+            LoopProfiler.start(sections[next]);
+            tasks[next].run(elapsed[next]);
+            LoopProfiler.end(sections[next]);
+            elapsed[next] = 0;
+
+            lastRun[next] = cycle;
+            runCounts[next]++;
+            ranAny = true;
+
+            deadlines[next] += periods[next];
+            // a task that can't keep up runs every loop instead of piling up missed deadlines
+            if (deadlines[next] < start) {
+                deadlines[next] = start;
+            }
+        }
+
+        double windowLength = (start - windowStart) / 1e9;
+        if (windowLength >= RATE_WINDOW) {
+            for (int i = 0; i < taskCount; i++) {
+                achievedRates[i] = runCounts[i] / windowLength;
+                runCounts[i] = 0;
+                Dashboard.set(rateChannels[i], achievedRates[i]);
+            }
+            windowStart = start;
+        }
+        Dashboard.set(DEFERRED_TASKS, deferred);
+    }
+
+    /**
+     * @return rate in Hz the task actually ran at over the last full window
+     */
+    public double getAchievedRate(int id) {
+        return achievedRates[id];
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * @return number of due tasks pushed to the next loop during the last {@link #run(double)}
+     */
+    public int getDeferred() {
+        return deferred;
+    }
+}
@@ -0,0 +1,143 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+import com.acmerobotics.roadrunner.geometry.Pose2d;
+import com.acmerobotics.roadrunner.util.Angle;
+
+/**
+ * Fixed capacity ring buffer of timestamped poses, stored as primitives so adding a pose never allocates.
+ * Once full, every new pose replaces the oldest one. Samples are indexed from 0 (oldest) to size() - 1 (newest),
+ * and can be looked up by time, which is expected to increase with every add.
+ * <p>
+ * All methods are synchronized so one thread can add while another one reads, e.g. for drawing.
+ */
+public class PoseHistory {
+    private final double[] timestamps;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+
+    private int head = 0; // index of the oldest sample
+    private int size = 0;
+
+    public PoseHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, got " + capacity);
+        }
+        timestamps = new double[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+        headings = new double[capacity];
+    }
+
+    public synchronized void add(double timestamp, double x, double y, double heading) {
+        int index;
+        if (size < timestamps.length) {
+            index = (head + size) % timestamps.length;
+            size++;
+        } else {
+            index = head;
+            head = (head + 1) % timestamps.length;
+        }
+        timestamps[index] = timestamp;
+        xs[index] = x;
+        ys[index] = y;
+        headings[index] = heading;
+    }
+
+    public void add(double timestamp, Pose2d pose) {
+        add(timestamp, pose.getX(), pose.getY(), pose.getHeading());
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    private int wrap(int i) {
+        return (head + i) % timestamps.length;
+    }
+
+    public synchronized double getTimestamp(int i) {
+        return timestamps[wrap(i)];
+    }
+
+    public synchronized double getX(int i) {
+        return xs[wrap(i)];
+    }
+
+    public synchronized double getY(int i) {
+        return ys[wrap(i)];
+    }
+
+    public synchronized double getHeading(int i) {
+        return headings[wrap(i)];
+    }
+
+    /**
+     * Binary search for the newest sample taken at or before the given time
+     *
+     * @return index of the sample, or -1 if every sample is newer than time
+     */
+    public synchronized int indexAt(double time) {
+        int low = 0;
+        int high = size - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[wrap(mid)] <= time) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return pose linearly interpolated between the samples around time, clamped to the oldest and newest
+     * sample, or null if the history is empty
+     */
+    public synchronized Pose2d getPose(double time) {
+        if (size == 0) {
+            return null;
+        }
+        int before = indexAt(time);
+        if (before < 0) {
+            before = 0;
+        }
+        int after = Math.min(before + 1, size - 1);
+
+        int i = wrap(before);
+        int j = wrap(after);
+        double span = timestamps[j] - timestamps[i];
+        double t = span > 0 ? Math.max(0, Math.min(1, (time - timestamps[i]) / span)) : 0;
+        return new Pose2d(
+                xs[i] + (xs[j] - xs[i]) * t,
+                ys[i] + (ys[j] - ys[i]) * t,
+                Angle.norm(headings[i] + Angle.normDelta(headings[j] - headings[i]) * t)
+        );
+    }
+
+    /**
+     * Copies the positions in order from oldest to newest, the arrays must hold at least size() points
+     *
+     * @return number of points copied
+     */
+    public synchronized int copyPositions(double[] xPoints, double[] yPoints) {
+        int first = Math.min(size, timestamps.length - head);
+        System.arraycopy(xs, head, xPoints, 0, first);
+        System.arraycopy(ys, head, yPoints, 0, first);
+        System.arraycopy(xs, 0, xPoints, first, size - first);
+        System.arraycopy(ys, 0, yPoints, first, size - first);
+        return size;
+    }
+}
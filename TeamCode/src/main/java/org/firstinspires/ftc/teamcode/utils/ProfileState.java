@@ -0,0 +1,31 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * Position, velocity and acceleration at one point of a profile. Unlike RoadRunner's MotionState this can be
+ * written into, so a caller can keep one around and sample into it every loop without allocating.
+ */
+public class ProfileState {
+    public double x;
+    public double v;
+    public double a;
+
+    public ProfileState() {
+        this(0, 0, 0);
+    }
+
+    public ProfileState(double x, double v, double a) {
+        set(x, v, a);
+    }
+
+    public ProfileState set(double x, double v, double a) {
+        this.x = x;
+        this.v = v;
+        this.a = a;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ProfileState(x=" + x + ", v=" + v + ", a=" + a + ")";
+    }
+}
@@ -0,0 +1,135 @@
+package org.firstinspires.ftc.teamcode.utils;
+
+/**
+ * Jerk limited (S-curve) version of {@link AsymmetricMotionProfile}. The acceleration ramps up and down at
+ * {@link MotionConstraint#maxJerk} instead of stepping, so a rest to rest move is 7 segments: jerk, constant
+ * accel, jerk, coast, and the same for decel. Short moves drop the constant accel and coast segments.
+ * Accel and decel can still have different limits.
+ * <p>
+ * An initial velocity is handled like the trapezoidal profile does, by braking first when needed. The initial
+ * acceleration is taken to be 0, so replanning mid-ramp steps the acceleration once.
+ */
+public class SCurveMotionProfile extends AsymmetricMotionProfile {
+    private static final int PEAK_ITERATIONS = 50;
+
+    public SCurveMotionProfile(double initialPosition, double finalPosition, MotionConstraint constraints) {
+        super(initialPosition, finalPosition, constraints);
+    }
+
+    public SCurveMotionProfile(double initialPosition, double finalPosition, double initialVelocity,
+                               MotionConstraint constraints) {
+        super(initialPosition, finalPosition, initialVelocity, constraints);
+    }
+
+    @Override
+    protected void computeProfileTimes() {
+        distance = finalPosition - initialPosition;
+
+        double maxVelo = Math.abs(constraints.maxVelo);
+        double target = Math.abs(distance);
+        double velocity = distance < 0 ? -initialVelocity : initialVelocity;
+
+        segmentCount = 0;
+        double position = 0;
+        double brakeTime = 0;
+        if (velocity < 0 || rampDistance(velocity, 0) > target) {
+            // moving away, or too fast to stop before the target: come to a stop first
+            position = rampDistance(velocity, 0);
+            brakeTime = addRamp(velocity, 0);
+            velocity = 0;
+        }
+
+        // the rest is a 7 segment S-curve, backwards if the brake went past the target
+        double remaining = target - position;
+        double sign = remaining < 0 ? -1 : 1;
+        remaining = Math.abs(remaining);
+        velocity = Math.abs(velocity);
+
+        double peakVelocity = maxVelo;
+        if (velocity <= maxVelo && moveDistance(velocity, maxVelo) > remaining) {
+            // never gets to max velocity, the move distance only grows with the peak so search for it
+            double low = velocity;
+            double high = maxVelo;
+            for (int i = 0; i < PEAK_ITERATIONS; i++) {
+                double mid = (low + high) / 2;
+                if (moveDistance(velocity, mid) > remaining) {
+                    high = mid;
+                } else {
+                    low = mid;
+                }
+            }
+            peakVelocity = low;
+        }
+
+        coastTime = peakVelocity > 0 ? Math.max((remaining - moveDistance(velocity, peakVelocity)) / peakVelocity, 0) : 0;
+        accelTime = brakeTime + addRamp(velocity * sign, peakVelocity * sign);
+        addSegment(coastTime, 0, 0);
+        decelTime = addRamp(peakVelocity * sign, 0);
+
+        profileDuration = accelTime + coastTime + decelTime;
+    }
+
+    /**
+     * @return distance to go from one velocity to the peak and then stop
+     */
+    private double moveDistance(double velocity, double peakVelocity) {
+        return rampDistance(velocity, peakVelocity) + rampDistance(peakVelocity, 0);
+    }
+
+    /**
+     * @return signed distance covered changing velocity, which is the mean velocity times the time it takes
+     * since the acceleration is symmetric
+     */
+    private double rampDistance(double from, double to) {
+        return (from + to) / 2 * rampTime(from, to);
+    }
+
+    private double rampTime(double from, double to) {
+        double change = Math.abs(to - from);
+        double accel = rampAccel(from, to);
+        double jerk = Math.abs(constraints.maxJerk);
+        if (change * jerk >= accel * accel) {
+            return change / accel + accel / jerk;
+        }
+        return 2 * Math.sqrt(change / jerk);
+    }
+
+    /**
+     * @return accel limit when speeding up, decel limit when slowing down
+     */
+    private double rampAccel(double from, double to) {
+        return Math.abs(Math.abs(to) > Math.abs(from) ? constraints.maxAccel : constraints.maxDecel);
+    }
+
+    /**
+     * Adds the segments that change velocity as fast as the limits allow
+     *
+     * @return how long it takes
+     */
+    private double addRamp(double from, double to) {
+        double change = Math.abs(to - from);
+        if (change == 0) {
+            return 0;
+        }
+        double sign = Math.signum(to - from);
+        double accel = rampAccel(from, to);
+        double jerk = Math.abs(constraints.maxJerk);
+
+        double jerkTime;
+        double constantTime;
+        if (change * jerk >= accel * accel) {
+            jerkTime = accel / jerk;
+            constantTime = change / accel - jerkTime;
+        } else {
+            // never gets to the accel limit
+            jerkTime = Math.sqrt(change / jerk);
+            constantTime = 0;
+            accel = jerkTime * jerk;
+        }
+
+        addSegment(jerkTime, 0, sign * jerk);
+        addSegment(constantTime, sign * accel, 0);
+        addSegment(jerkTime, sign * accel, -sign * jerk);
+        return 2 * jerkTime + constantTime;
+    }
+}
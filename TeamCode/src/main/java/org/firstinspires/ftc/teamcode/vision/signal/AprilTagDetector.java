@@ -1,5 +1,6 @@
 package org.firstinspires.ftc.teamcode.vision.signal;
 
+import org.firstinspires.ftc.teamcode.utils.Metrics;
 import org.opencv.calib3d.Calib3d;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
@@ -17,6 +18,9 @@ import org.openftc.easyopencv.OpenCvPipeline;
 import java.util.ArrayList;
 
 public class AprilTagDetector extends OpenCvPipeline {
+    private static final int FRAMES = Metrics.timer("vision", "frames");
+    private static final int TAGS = Metrics.gauge("vision", "tags");
+
     private long nativeApriltagPtr;
     private final Mat grey = new Mat();
     private ArrayList<AprilTagDetection> detections = new ArrayList<>();
@@ -80,6 +84,8 @@ public class AprilTagDetector extends OpenCvPipeline {
     @Override
     public Mat processFrame(Mat input)
     {
+        long start = System.nanoTime();
+
         // Convert to greyscale
         Imgproc.cvtColor(input, grey, Imgproc.COLOR_RGBA2GRAY);
 
@@ -109,6 +115,9 @@ public class AprilTagDetector extends OpenCvPipeline {
             draw3dCubeMarker(input, tagsizeX, tagsizeX, tagsizeY, 5, pose.rvec, pose.tvec, cameraMatrix);
         }
 
+        Metrics.set(TAGS, detections.size());
+        Metrics.record(FRAMES, System.nanoTime() - start);
+
         return input;
     }
 